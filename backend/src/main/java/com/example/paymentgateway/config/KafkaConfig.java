@@ -0,0 +1,127 @@
+package com.example.paymentgateway.config;
+
+import com.example.paymentgateway.kafka.ConsumerPipelineRegistry;
+import com.example.paymentgateway.kafka.KafkaCompensationConsumerService;
+import com.example.paymentgateway.kafka.PaymentEvent;
+import com.example.paymentgateway.kafka.PaymentEventSerializer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.util.backoff.BackOff;
+
+import java.util.Map;
+
+@Configuration
+public class KafkaConfig {
+    @Value("${compensation.listener.concurrency:3}")
+    private int compensationConcurrency;
+
+    @Value("${kafka.pipeline.idle-commit-interval-ms:1000}")
+    private long idleCommitIntervalMs;
+
+    @Value("${kafka.pipeline.retry.max-retries:4}")
+    private int pipelineMaxRetries;
+    @Value("${kafka.pipeline.retry.initial-interval-ms:500}")
+    private long pipelineRetryInitialMs;
+    @Value("${kafka.pipeline.retry.max-interval-ms:10000}")
+    private long pipelineRetryMaxMs;
+
+    // Static membership: a restarting node rejoins under the same group.instance.id within
+    // session.timeout.ms without triggering a rebalance. Spring suffixes the id per concurrent
+    // consumer, and every group has exactly one listener per node, so ids never collide.
+    @Bean
+    public DefaultKafkaConsumerFactoryCustomizer staticMembershipCustomizer(
+            @Value("${kafka.consumer.instance-id:}") String instanceId) {
+        return factory -> {
+            if (!instanceId.isBlank()) {
+                factory.updateConfigs(Map.of(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, instanceId));
+            }
+        };
+    }
+
+    // Typed template for direct publishing of PaymentEvents
+    @Bean
+    public KafkaTemplate<String, PaymentEvent> paymentEventKafkaTemplate(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(null);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new PaymentEventSerializer()));
+    }
+
+    // Raw template used by the outbox relay: payloads are already encoded, so they are sent as-is
+    @Bean
+    public KafkaTemplate<String, byte[]> outboxKafkaTemplate(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(null);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new ByteArraySerializer()));
+    }
+
+    // Batch listeners for the compensation topics. Per-event failures are routed by the listener itself;
+    // anything it throws (e.g. the database is down) retries the batch with backoff, then dead-letters it.
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> compensationBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, PaymentEvent> paymentEventKafkaTemplate) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(compensationConcurrency);
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(4);
+        backOff.setInitialInterval(1000);
+        backOff.setMultiplier(2);
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(paymentEventKafkaTemplate,
+                (record, e) -> new TopicPartition(KafkaCompensationConsumerService.DLQ_TOPIC, -1));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(recoverer, backOff));
+        return factory;
+    }
+
+    // Per-record retries of a ConsumerPipeline handler, run on the record's lane
+    @Bean
+    public BackOff pipelineBackOff() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(pipelineMaxRetries);
+        backOff.setInitialInterval(pipelineRetryInitialMs);
+        backOff.setMultiplier(2);
+        backOff.setMaxInterval(pipelineRetryMaxMs);
+        return backOff;
+    }
+
+    // Where a pipeline record goes once its retries are exhausted: <topic>-dlq, any partition.
+    // Waits for the broker's ack, so a record only counts as handled once it is safely dead-lettered.
+    @Bean
+    public ConsumerRecordRecoverer pipelineDeadLetterRecoverer(KafkaTemplate<String, PaymentEvent> paymentEventKafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(paymentEventKafkaTemplate,
+                (record, e) -> new TopicPartition(record.topic() + "-dlq", -1));
+    }
+
+    // Batch listeners feeding a ConsumerPipeline. Offsets are committed by the pipeline (manual ack
+    // mode keeps the container from committing whole batches that are still being processed).
+    // Concurrency is set per listener.
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> pipelineListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            ConsumerPipelineRegistry consumerPipelineRegistry) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setConsumerRebalanceListener(consumerPipelineRegistry);
+        containerProperties.setIdleEventInterval(idleCommitIntervalMs);
+        return factory;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.paymentgateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    // Upper bound on live buckets per key class (merchant, bank, subject, ip)
+    private int maxKeysPerClass = 100_000;
+
+    // Buckets untouched for this long are dropped by the sweeper
+    private long idleEvictionMs = 600_000;
+
+    // Tier name -> limit; "default" applies to any key without an explicit tier
+    private Map<String, Tier> tiers = new HashMap<>(Map.of("default", new Tier()));
+
+    // Tenant (merchant/bank) id -> tier name
+    private Map<String, String> tenantTiers = new HashMap<>();
+
+    // Only tenant ids are looked up in tenantTiers: a username or IP equal to a tenant id gets the default
+    public Tier tenantTierFor(String tenantId) {
+        String tierName = tenantTiers.get(tenantId);
+        Tier tier = tierName != null ? tiers.get(tierName) : null;
+        return tier != null ? tier : defaultTier();
+    }
+
+    public Tier defaultTier() {
+        Tier tier = tiers.get("default");
+        return tier != null ? tier : new Tier();
+    }
+
+    public static class Tier {
+        private long capacity = 100;
+        private long periodSeconds = 60;
+
+        public long getCapacity() { return capacity; }
+        public void setCapacity(long capacity) { this.capacity = capacity; }
+        public long getPeriodSeconds() { return periodSeconds; }
+        public void setPeriodSeconds(long periodSeconds) { this.periodSeconds = periodSeconds; }
+    }
+
+    // Getters and setters
+    public int getMaxKeysPerClass() { return maxKeysPerClass; }
+    public void setMaxKeysPerClass(int maxKeysPerClass) { this.maxKeysPerClass = maxKeysPerClass; }
+    public long getIdleEvictionMs() { return idleEvictionMs; }
+    public void setIdleEvictionMs(long idleEvictionMs) { this.idleEvictionMs = idleEvictionMs; }
+    public Map<String, Tier> getTiers() { return tiers; }
+    public void setTiers(Map<String, Tier> tiers) { this.tiers = tiers; }
+    public Map<String, String> getTenantTiers() { return tenantTiers; }
+    public void setTenantTiers(Map<String, String> tenantTiers) { this.tenantTiers = tenantTiers; }
+}
@@ -1,19 +1,10 @@
 package com.example.paymentgateway.config;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Bucket4j;
-import io.github.bucket4j.Refill;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.Duration;
-
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class RateLimitingConfig {
-    @Bean
-    public Bucket apiBucket() {
-        Bandwidth limit = Bandwidth.classic(100, Refill.greedy(100, Duration.ofMinutes(1)));
-        return Bucket4j.builder().addLimit(limit).build();
-    }
+    // Buckets are created per key by KeyedRateLimiter using the tiers in RateLimitProperties
 }
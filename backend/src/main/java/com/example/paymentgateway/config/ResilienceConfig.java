@@ -1,36 +1,23 @@
 package com.example.paymentgateway.config;
 
-import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
-import io.github.resilience4j.retry.RetryConfig;
-import io.github.resilience4j.timelimiter.TimeLimiterConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
+// Circuit breaker, bulkhead and time limiter instances are configured under resilience4j.* in
+// application.properties and created through the auto-configured registries, which also publish
+// their per-instance metrics to Micrometer.
 @Configuration
 public class ResilienceConfig {
-    @Bean
-    public CircuitBreakerConfig defaultCircuitBreakerConfig() {
-        return CircuitBreakerConfig.custom()
-                .failureRateThreshold(50)
-                .waitDurationInOpenState(Duration.ofSeconds(10))
-                .slidingWindowSize(10)
-                .build();
-    }
-
-    @Bean
-    public RetryConfig defaultRetryConfig() {
-        return RetryConfig.custom()
-                .maxAttempts(3)
-                .waitDuration(Duration.ofMillis(500))
-                .build();
-    }
-
-    @Bean
-    public TimeLimiterConfig defaultTimeLimiterConfig() {
-        return TimeLimiterConfig.custom()
-                .timeoutDuration(Duration.ofSeconds(5))
-                .build();
+    // Fires time-limiter timeouts and deferred retries; tasks are tiny, so one thread is enough
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService resilienceScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "resilience-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 }
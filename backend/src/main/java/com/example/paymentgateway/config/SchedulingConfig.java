@@ -0,0 +1,17 @@
+package com.example.paymentgateway.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class SchedulingConfig {
+    // Runs the @Scheduled jobs, sized by spring.task.scheduling.*. Declared explicitly because the
+    // resilienceScheduler bean makes Spring Boot skip its own scheduler, which would leave every
+    // @Scheduled job sharing that single time-limiter thread.
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.paymentgateway.controller;
+
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.security.CurrentUser;
+import com.example.paymentgateway.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/users")
+public class AdminUserController {
+    @Autowired
+    private UserService userService;
+
+    // Takes effect immediately: cached verifications and refresh tokens of the user are revoked
+    @PostMapping("/{id}/disable")
+    public ResponseEntity<?> disableUser(@PathVariable Long id, @CurrentUser User admin) {
+        if (admin == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(summary(userService.disableUser(admin, id)));
+    }
+
+    @PostMapping("/{id}/enable")
+    public ResponseEntity<?> enableUser(@PathVariable Long id, @CurrentUser User admin) {
+        if (admin == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(summary(userService.enableUser(admin, id)));
+    }
+
+    // Not the entity itself: it carries the password hash
+    private static Map<String, Object> summary(User user) {
+        return Map.of("id", user.getId(), "username", user.getUsername(), "enabled", user.isEnabled());
+    }
+}
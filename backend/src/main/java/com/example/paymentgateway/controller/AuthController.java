@@ -1,24 +1,33 @@
 
 package com.example.paymentgateway.controller;
 
+import com.example.paymentgateway.security.GatewayUserDetails;
 import com.example.paymentgateway.security.JwtBlacklist;
+import com.example.paymentgateway.security.PasswordHashingService;
+import com.example.paymentgateway.security.RefreshTokenService;
+import com.example.paymentgateway.security.VerifiedTokenCache;
 
 import com.example.paymentgateway.model.AuthRequest;
 import com.example.paymentgateway.model.AuthResponse;
+import com.example.paymentgateway.model.RefreshRequest;
+import com.example.paymentgateway.model.RegisterRequest;
 import com.example.paymentgateway.model.User;
 import com.example.paymentgateway.security.JwtUtil;
 import com.example.paymentgateway.security.CustomUserDetailsService;
 import com.example.paymentgateway.service.UserService;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
@@ -33,40 +42,94 @@ public class AuthController {
 
     @Autowired
     private JwtBlacklist jwtBlacklist;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @PostMapping("/logout")
     public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader) {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             jwtBlacklist.blacklist(token);
+            verifiedTokenCache.invalidate(token);
+            revokeSession(token);
             return ResponseEntity.ok("Logged out and token revoked");
         }
         return ResponseEntity.badRequest().body("No token provided");
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody User user) {
-        if (userService.existsByUsername(user.getUsername())) {
-            return ResponseEntity.badRequest().body("Username already exists");
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest request) {
+        if (userService.existsByUsername(request.getUsername())) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Username already exists"));
         }
-        if (userService.existsByEmail(user.getEmail())) {
-            return ResponseEntity.badRequest().body("Email already exists");
+        if (userService.existsByEmail(request.getEmail())) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Email already exists"));
         }
-        User saved = userService.registerUser(user);
-        return ResponseEntity.ok(saved);
+        User user = new User();
+        user.setUsername(request.getUsername());
+        user.setPassword(request.getPassword());
+        user.setEmail(request.getEmail());
+        // The saved entity carries the password hash, so only a summary goes back
+        return userService.registerUser(user).thenApply(saved -> ResponseEntity.ok(
+                Map.of("id", saved.getId(), "username", saved.getUsername(), "email", saved.getEmail())));
     }
 
+    // Credential verification (BCrypt) runs on the password hashing pool, not the servlet thread.
+    // The token is issued from the authenticated principal, so the user is loaded exactly once.
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequest authRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody AuthRequest authRequest) {
+        return passwordHashingService.submit("login", () -> {
+            Authentication authentication;
+            try {
+                authentication = authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
+                );
+            } catch (BadCredentialsException e) {
+                return ResponseEntity.status(401).body("Invalid credentials");
+            }
+            GatewayUserDetails principal = (GatewayUserDetails) authentication.getPrincipal();
+            RefreshTokenService.Rotation session = refreshTokenService.issue(principal.getUsername());
+            return ResponseEntity.ok(new AuthResponse(
+                    jwtUtil.generateAccessToken(principal, session.familyId()), session.refreshToken()));
+        });
+    }
+
+    // Single-use rotation: the presented refresh token is consumed and a new pair is returned
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        RefreshTokenService.Rotation rotation;
+        try {
+            rotation = refreshTokenService.rotate(request.getRefreshToken());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(401).body("Invalid refresh token");
+        }
+        GatewayUserDetails principal;
+        try {
+            principal = (GatewayUserDetails) userDetailsService.loadUserByUsername(rotation.username());
+        } catch (UsernameNotFoundException e) {
+            principal = null;
+        }
+        if (principal == null || !principal.isEnabled()) {
+            refreshTokenService.revokeFamily(rotation.familyId());
+            return ResponseEntity.status(401).body("Invalid refresh token");
+        }
+        return ResponseEntity.ok(new AuthResponse(
+                jwtUtil.generateAccessToken(principal, rotation.familyId()), rotation.refreshToken()));
+    }
+
+    // Ends the refresh token family the access token was issued under, if any
+    private void revokeSession(String token) {
         try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
-            );
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-        } catch (BadCredentialsException e) {
-            return ResponseEntity.status(401).body("Invalid credentials");
+            String sessionId = jwtUtil.sessionId(jwtUtil.parseClaims(token));
+            if (sessionId != null) {
+                refreshTokenService.revokeFamily(sessionId);
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            // expired or malformed: nothing left to revoke
         }
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(authRequest.getUsername());
-        final String jwt = jwtUtil.generateToken(userDetails);
-        return ResponseEntity.ok(new AuthResponse(jwt));
     }
 }
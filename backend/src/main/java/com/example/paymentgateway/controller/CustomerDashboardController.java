@@ -1,14 +1,33 @@
 package com.example.paymentgateway.controller;
 
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.security.CurrentUser;
+import com.example.paymentgateway.service.DashboardStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/customer/dashboard")
 public class CustomerDashboardController {
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    // Served from pre-aggregated counters; cost does not grow with transaction history
     @GetMapping
-    public ResponseEntity<?> getDashboardStats() {
-        // TODO: Implement dashboard stats logic
-        return ResponseEntity.ok("Customer dashboard stats");
+    public ResponseEntity<?> getDashboardStats(@CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("user", dashboardStatsService.userStats(user.getId()));
+        String tenant = user.getMerchantId() != null ? user.getMerchantId() : user.getBankId();
+        if (tenant != null && (user.isMerchant() || user.isAdmin())) {
+            stats.put("tenant", dashboardStatsService.tenantStats(tenant));
+        }
+        return ResponseEntity.ok(stats);
     }
 }
@@ -1,14 +1,13 @@
 package com.example.paymentgateway.controller;
 
 import com.example.paymentgateway.model.Notification;
+import com.example.paymentgateway.security.CurrentUser;
 import com.example.paymentgateway.service.NotificationService;
-import com.example.paymentgateway.service.UserService;
 import com.example.paymentgateway.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 
 @RestController
@@ -16,12 +15,9 @@ import java.util.List;
 public class NotificationController {
     @Autowired
     private NotificationService notificationService;
-    @Autowired
-    private UserService userService;
 
     @PostMapping
-    public ResponseEntity<?> sendNotification(@RequestBody String message, Principal principal) {
-        User user = userService.findByUsername(principal.getName()).orElse(null);
+    public ResponseEntity<?> sendNotification(@RequestBody String message, @CurrentUser User user) {
         if (user == null) {
             return ResponseEntity.badRequest().body("User not found");
         }
@@ -30,8 +26,7 @@ public class NotificationController {
     }
 
     @GetMapping
-    public ResponseEntity<?> getUserNotifications(Principal principal) {
-        User user = userService.findByUsername(principal.getName()).orElse(null);
+    public ResponseEntity<?> getUserNotifications(@CurrentUser User user) {
         if (user == null) {
             return ResponseEntity.badRequest().body("User not found");
         }
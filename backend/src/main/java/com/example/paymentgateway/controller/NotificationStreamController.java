@@ -1,14 +1,22 @@
 package com.example.paymentgateway.controller;
 
-import org.springframework.http.ResponseEntity;
+import com.example.paymentgateway.service.NotificationHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.security.Principal;
 
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationStreamController {
-    @GetMapping("/stream")
-    public ResponseEntity<?> streamNotifications() {
-        // TODO: Implement WebSocket/SSE logic
-        return ResponseEntity.ok("Notification stream endpoint");
+    @Autowired
+    private NotificationHub notificationHub;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(Principal principal,
+                                          @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return notificationHub.subscribe(principal.getName(), lastEventId);
     }
 }
@@ -1,20 +1,53 @@
 package com.example.paymentgateway.controller;
 
+import com.example.paymentgateway.model.PaymentState;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.security.CurrentUser;
+import com.example.paymentgateway.service.PaymentOrchestrator;
+import com.example.paymentgateway.service.PaymentOrchestrator.PaymentStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/payment")
 public class PaymentController {
+    @Autowired
+    private PaymentOrchestrator paymentOrchestrator;
+
+    // Accepts the payment and returns immediately; authorization and capture continue asynchronously
     @PostMapping
-    public ResponseEntity<?> initiatePayment(@RequestBody Object request) {
-        // TODO: Implement payment initiation logic
-        return ResponseEntity.ok("Payment initiated");
+    public CompletableFuture<ResponseEntity<?>> initiatePayment(@RequestBody Transaction request, @CurrentUser User user) {
+        if (user == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("User not found"));
+        }
+        return paymentOrchestrator.initiatePayment(user, request).thenApply(saved -> ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/payment/" + saved.getId())
+                .body(Map.of(
+                        "id", saved.getId(),
+                        "state", PaymentState.fromStatus(saved.getStatus()),
+                        "statusUrl", "/api/payment/" + saved.getId())));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getPaymentStatus(@PathVariable String id) {
-        // TODO: Implement payment status logic
-        return ResponseEntity.ok("Payment status for " + id);
+    public ResponseEntity<?> getPaymentStatus(@PathVariable Long id, @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        PaymentStatus status = paymentOrchestrator.getPaymentStatus(id);
+        if (status == null || !user.getId().equals(status.userId())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of(
+                "id", id,
+                "state", status.state(),
+                "terminal", status.state().isTerminal()));
     }
 }
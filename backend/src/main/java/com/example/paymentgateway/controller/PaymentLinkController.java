@@ -1,38 +1,83 @@
 package com.example.paymentgateway.controller;
 
+import com.example.paymentgateway.model.PaymentLinkRequest;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.security.CurrentUser;
+import com.example.paymentgateway.service.PaymentLinkService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/payment-links")
 public class PaymentLinkController {
+    @Autowired
+    private PaymentLinkService paymentLinkService;
+
     @PostMapping
-    public ResponseEntity<?> createPaymentLink(@RequestBody Object request) {
-        // TODO: Implement create payment link
-        return ResponseEntity.ok("Payment link created");
+    public ResponseEntity<?> createPaymentLink(@RequestBody PaymentLinkRequest request, @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(paymentLinkService.createPaymentLink(user, request));
     }
 
     @GetMapping
-    public ResponseEntity<?> listPaymentLinks() {
-        // TODO: Implement list payment links
-        return ResponseEntity.ok("List of payment links");
+    public ResponseEntity<?> listPaymentLinks(@CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(paymentLinkService.getPaymentLinks(user));
+    }
+
+    @GetMapping("/{code}")
+    public ResponseEntity<?> getPaymentLink(@PathVariable String code, @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(paymentLinkService.getPaymentLink(user, code));
+    }
+
+    @PutMapping("/{code}")
+    public ResponseEntity<?> updatePaymentLink(@PathVariable String code, @RequestBody PaymentLinkRequest request,
+                                               @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(paymentLinkService.updatePaymentLink(user, code, request));
+    }
+
+    // Links are deactivated rather than removed, so a shared code never points at a reissued link
+    @DeleteMapping("/{code}")
+    public ResponseEntity<?> deletePaymentLink(@PathVariable String code, @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(paymentLinkService.deactivatePaymentLink(user, code));
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<?> getPaymentLink(@PathVariable String id) {
-        // TODO: Implement get payment link
-        return ResponseEntity.ok("Payment link details for " + id);
+    // Public: what a payer sees when opening a shared link
+    @GetMapping("/resolve/{code}")
+    public ResponseEntity<?> resolvePaymentLink(@PathVariable String code) {
+        return paymentLinkService.resolve(code)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    @PutMapping("/{id}")
-    public ResponseEntity<?> updatePaymentLink(@PathVariable String id, @RequestBody Object request) {
-        // TODO: Implement update payment link
-        return ResponseEntity.ok("Payment link updated for " + id);
+    @PostMapping("/resolve/{code}/pay")
+    public CompletableFuture<ResponseEntity<?>> payPaymentLink(@PathVariable String code, @CurrentUser User user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (user == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("User not found"));
+        }
+        return paymentLinkService.pay(user, code, idempotencyKey).thenApply(PaymentLinkController::submitted);
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<?> deletePaymentLink(@PathVariable String id) {
-        // TODO: Implement delete payment link
-        return ResponseEntity.ok("Payment link deleted for " + id);
+    private static ResponseEntity<?> submitted(Transaction saved) {
+        return ResponseEntity.accepted().header(HttpHeaders.LOCATION, "/api/payment/" + saved.getId()).body(saved);
     }
 }
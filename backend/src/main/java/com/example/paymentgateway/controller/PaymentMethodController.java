@@ -2,13 +2,12 @@ package com.example.paymentgateway.controller;
 
 import com.example.paymentgateway.model.PaymentMethod;
 import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.security.CurrentUser;
 import com.example.paymentgateway.service.PaymentMethodService;
-import com.example.paymentgateway.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 
 @RestController
@@ -16,12 +15,9 @@ import java.util.List;
 public class PaymentMethodController {
     @Autowired
     private PaymentMethodService paymentMethodService;
-    @Autowired
-    private UserService userService;
 
     @PostMapping
-    public ResponseEntity<?> addPaymentMethod(@RequestBody PaymentMethod paymentMethod, Principal principal) {
-        User user = userService.findByUsername(principal.getName()).orElse(null);
+    public ResponseEntity<?> addPaymentMethod(@RequestBody PaymentMethod paymentMethod, @CurrentUser User user) {
         if (user == null) {
             return ResponseEntity.badRequest().body("User not found");
         }
@@ -30,12 +26,35 @@ public class PaymentMethodController {
     }
 
     @GetMapping
-    public ResponseEntity<?> getUserPaymentMethods(Principal principal) {
-        User user = userService.findByUsername(principal.getName()).orElse(null);
+    public ResponseEntity<?> getUserPaymentMethods(@CurrentUser User user) {
         if (user == null) {
             return ResponseEntity.badRequest().body("User not found");
         }
         List<PaymentMethod> methods = paymentMethodService.getUserPaymentMethods(user);
         return ResponseEntity.ok(methods);
     }
+
+    @GetMapping("/usable")
+    public ResponseEntity<?> getUsablePaymentMethods(@CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(paymentMethodService.getUsablePaymentMethods(user));
+    }
+
+    @PostMapping("/{id}/deactivate")
+    public ResponseEntity<?> deactivatePaymentMethod(@PathVariable Long id, @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(paymentMethodService.deactivatePaymentMethod(user, id));
+    }
+
+    @PostMapping("/{id}/verify")
+    public ResponseEntity<?> verifyPaymentMethod(@PathVariable Long id, @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        return ResponseEntity.ok(paymentMethodService.verifyPaymentMethod(user, id));
+    }
 }
@@ -1,41 +1,138 @@
 package com.example.paymentgateway.controller;
 
 import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionFilter;
+import com.example.paymentgateway.model.TransactionPage;
+import com.example.paymentgateway.model.TransactionStatus;
 import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.security.CurrentUser;
+import com.example.paymentgateway.service.TransactionExportService;
+import com.example.paymentgateway.service.TransactionIntakeService;
 import com.example.paymentgateway.service.TransactionService;
-import com.example.paymentgateway.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.security.Principal;
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    // Cursor for the page after a plain-list response; absent on the last page
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private TransactionService transactionService;
     @Autowired
-    private UserService userService;
+    private TransactionIntakeService transactionIntakeService;
+    @Autowired
+    private TransactionExportService transactionExportService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
+    // Completes once the transaction has committed; the servlet thread is released meanwhile.
+    // Pending transactions answer 202 with the payment status URL to poll.
     @PostMapping
-    public ResponseEntity<?> createTransaction(@RequestBody Transaction transaction, Principal principal) {
-        User user = userService.findByUsername(principal.getName()).orElse(null);
+    public CompletableFuture<ResponseEntity<?>> createTransaction(@RequestBody Transaction transaction, @CurrentUser User user) {
         if (user == null) {
-            return ResponseEntity.badRequest().body("User not found");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("User not found"));
         }
-        Transaction saved = transactionService.createTransaction(user, transaction);
-        return ResponseEntity.ok(saved);
+        return transactionIntakeService.submit(user, transaction).thenApply(TransactionController::created);
     }
 
+    private static ResponseEntity<?> created(Transaction saved) {
+        if (!saved.isPending()) {
+            return ResponseEntity.ok(saved);
+        }
+        return ResponseEntity.accepted().header(HttpHeaders.LOCATION, "/api/payment/" + saved.getId()).body(saved);
+    }
+
+    // Without cursor or limit: the newest DEFAULT_PAGE_SIZE rows as a plain list, the next page's cursor in
+    // X-Next-Cursor. Passing cursor or limit answers with keyset pages (TransactionPage)
     @GetMapping
-    public ResponseEntity<?> getUserTransactions(Principal principal) {
-        User user = userService.findByUsername(principal.getName()).orElse(null);
+    public ResponseEntity<?> getUserTransactions(@CurrentUser User user,
+                                                 @RequestParam(required = false) String status,
+                                                 @RequestParam(required = false) Currency currency,
+                                                 @RequestParam(required = false) BigDecimal minAmount,
+                                                 @RequestParam(required = false) BigDecimal maxAmount,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limit) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        TransactionFilter filter = filter(status, currency, minAmount, maxAmount, from, to);
+        if (cursor == null && limit == null) {
+            TransactionPage first = transactionService.getUserTransactionsPage(user, filter, null, DEFAULT_PAGE_SIZE);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (first.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, first.getNextCursor());
+            }
+            return response.body(first.getItems());
+        }
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        TransactionPage page = transactionService.getUserTransactionsPage(user, filter, cursor, pageSize);
+        return ResponseEntity.ok(page);
+    }
+
+    // Full history as newline-delimited JSON, written row by row as it is read from the database
+    @GetMapping("/stream")
+    public ResponseEntity<?> streamUserTransactions(@CurrentUser User user,
+                                                    @RequestParam(required = false) String status,
+                                                    @RequestParam(required = false) Currency currency,
+                                                    @RequestParam(required = false) BigDecimal minAmount,
+                                                    @RequestParam(required = false) BigDecimal maxAmount,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                    HttpServletRequest request) {
         if (user == null) {
             return ResponseEntity.badRequest().body("User not found");
         }
-        List<Transaction> transactions = transactionService.getUserTransactions(user);
-        return ResponseEntity.ok(transactions);
+        TransactionFilter filter = filter(status, currency, minAmount, maxAmount, from, to);
+        // A full history can outlast the default async timeout; it gets the export timeout instead
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(transactionExportService.getTimeoutMs());
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                transactionService.streamUserTransactions(user, filter, transaction -> {
+                    try {
+                        writer.write(transaction);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    private static TransactionFilter filter(String status, Currency currency, BigDecimal minAmount, BigDecimal maxAmount,
+                                            LocalDateTime from, LocalDateTime to) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setStatus(status != null ? TransactionStatus.parse(status) : null);
+        filter.setCurrency(currency);
+        filter.setMinAmount(minAmount);
+        filter.setMaxAmount(maxAmount);
+        filter.setFrom(from);
+        filter.setTo(to);
+        return filter;
     }
 }
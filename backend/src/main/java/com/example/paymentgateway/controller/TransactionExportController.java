@@ -1,20 +1,135 @@
 package com.example.paymentgateway.controller;
 
+import com.example.paymentgateway.model.TransactionCursor;
+import com.example.paymentgateway.model.TransactionFilter;
+import com.example.paymentgateway.model.TransactionStatus;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.security.CurrentUser;
+import com.example.paymentgateway.service.CompensationService;
+import com.example.paymentgateway.service.TransactionExportService;
+import com.example.paymentgateway.service.TransactionExportWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionExportController {
+    @Autowired
+    private TransactionExportService transactionExportService;
+    @Autowired
+    private CompensationService compensationService;
+
     @GetMapping("/export")
-    public ResponseEntity<?> exportTransactions() {
-        // TODO: Implement export logic
-        return ResponseEntity.ok("Exported transactions");
+    public ResponseEntity<?> exportTransactions(@CurrentUser User user,
+                                                @RequestParam(defaultValue = "csv") String format,
+                                                @RequestParam(required = false) String status,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "true") boolean gzip,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                HttpServletRequest request) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        TransactionExportWriter.Format exportFormat;
+        try {
+            exportFormat = TransactionExportWriter.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("format must be csv or ndjson");
+        }
+        TransactionCursor after = cursor != null && !cursor.isEmpty() ? TransactionCursor.decode(cursor) : null;
+
+        // Users export their own history only, the same rows as GET /api/transactions (including
+        // payments made through another merchant's payment link)
+        TransactionFilter filter = new TransactionFilter();
+        filter.setUserId(user.getId());
+        String tenant = "user:" + user.getId();
+        filter.setStatus(status != null ? TransactionStatus.parse(status) : null);
+        filter.setFrom(from);
+        filter.setTo(to);
+
+        if (!transactionExportService.tryAcquire(tenant)) {
+            return ResponseEntity.status(429).body("Too many concurrent exports");
+        }
+        // The permit goes back when the async request ends, however it ends: streamed, failed, timed out,
+        // or never started because the body was not run
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.getAsyncWebRequest().setTimeout(transactionExportService.getTimeoutMs());
+        asyncManager.registerCallableInterceptor(TransactionExportController.class.getName(), new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                transactionExportService.release(tenant);
+            }
+        });
+        boolean compress = gzip && acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> transactionExportService.export(filter, after, exportFormat, compress, out);
+        String extension = exportFormat == TransactionExportWriter.Format.CSV ? "csv" : "ndjson";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == TransactionExportWriter.Format.CSV
+                        ? MediaType.parseMediaType("text/csv")
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + extension + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compress) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // gzip only when the client accepts it: listed (or covered by *) with a non-zero q, an explicit gzip entry taking precedence
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : anyQuality;
+        return quality != null && quality > 0;
     }
 
+    // Refunds are applied asynchronously by the compensation processor; poll the payment status URL
     @PostMapping("/{id}/refund")
-    public ResponseEntity<?> refundTransaction(@PathVariable String id) {
-        // TODO: Implement refund logic
-        return ResponseEntity.ok("Refunded transaction " + id);
+    public ResponseEntity<?> refundTransaction(@PathVariable Long id, @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+        compensationService.requestRefund(user, id);
+        return ResponseEntity.accepted().header(HttpHeaders.LOCATION, "/api/payment/" + id)
+                .body(Map.of("id", id, "status", "REFUND_REQUESTED"));
     }
 }
@@ -1,5 +1,7 @@
 package com.example.paymentgateway.exception;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -10,6 +12,8 @@ import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -28,6 +32,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    // Load shedding: saturated bulkheads/executors, open circuit breakers and time limiter timeouts
+    @ExceptionHandler({RejectedExecutionException.class, BulkheadFullException.class,
+            CallNotPermittedException.class, TimeoutException.class})
+    public ResponseEntity<?> handleOverload(Exception ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Server is busy, please retry");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<?> handleAllExceptions(Exception ex, WebRequest request) {
@@ -0,0 +1,105 @@
+package com.example.paymentgateway.filter;
+
+import com.example.paymentgateway.config.RateLimitProperties;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token-bucket rate limiter keyed by tenant or principal, so one noisy caller only drains its own bucket.
+ * Buckets live in one ConcurrentHashMap per key class (hash-striped, no shared CAS target) and are
+ * dropped after sitting idle. Once a bucket exists, a check does not allocate.
+ */
+@Component
+public class KeyedRateLimiter {
+    public enum KeyClass {
+        MERCHANT(true), BANK(true), SUBJECT(false), IP(false);
+
+        // Tenant keys may have their own tier (rate-limit.tenant-tiers); the others always get the default
+        final boolean tenant;
+
+        KeyClass(boolean tenant) {
+            this.tenant = tenant;
+        }
+    }
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<KeyClass, ConcurrentHashMap<String, Entry>> buckets = new EnumMap<>(KeyClass.class);
+    // Shared per-class bucket used only when a class is at its key bound, so new keys cannot grow the map
+    private final Map<KeyClass, Bucket> overflowBuckets = new EnumMap<>(KeyClass.class);
+    private final Map<KeyClass, Counter> allowed = new EnumMap<>(KeyClass.class);
+    private final Map<KeyClass, Counter> denied = new EnumMap<>(KeyClass.class);
+
+    @PostConstruct
+    void init() {
+        for (KeyClass keyClass : KeyClass.values()) {
+            String tag = keyClass.name().toLowerCase();
+            buckets.put(keyClass, new ConcurrentHashMap<>());
+            overflowBuckets.put(keyClass, newBucket(properties.defaultTier()));
+            allowed.put(keyClass, Counter.builder("ratelimit.requests")
+                    .tag("key_class", tag).tag("outcome", "allowed").register(meterRegistry));
+            denied.put(keyClass, Counter.builder("ratelimit.requests")
+                    .tag("key_class", tag).tag("outcome", "denied").register(meterRegistry));
+        }
+    }
+
+    public boolean tryConsume(KeyClass keyClass, String key) {
+        ConcurrentHashMap<String, Entry> classBuckets = buckets.get(keyClass);
+        Entry entry = classBuckets.get(key);
+        Bucket bucket;
+        if (entry != null) {
+            entry.lastAccess = System.currentTimeMillis();
+            bucket = entry.bucket;
+        } else if (classBuckets.size() < properties.getMaxKeysPerClass()) {
+            bucket = classBuckets.computeIfAbsent(key, k -> new Entry(newBucket(
+                    keyClass.tenant ? properties.tenantTierFor(k) : properties.defaultTier()))).bucket;
+        } else {
+            bucket = overflowBuckets.get(keyClass);
+        }
+        if (bucket.tryConsume(1)) {
+            allowed.get(keyClass).increment();
+            return true;
+        }
+        denied.get(keyClass).increment();
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - properties.getIdleEvictionMs();
+        for (ConcurrentHashMap<String, Entry> classBuckets : buckets.values()) {
+            classBuckets.values().removeIf(e -> e.lastAccess < cutoff);
+        }
+    }
+
+    private static Bucket newBucket(RateLimitProperties.Tier tier) {
+        Bandwidth limit = Bandwidth.classic(tier.getCapacity(),
+                Refill.greedy(tier.getCapacity(), Duration.ofSeconds(tier.getPeriodSeconds())));
+        return Bucket.builder().addLimit(limit).build();
+    }
+
+    private static final class Entry {
+        final Bucket bucket;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        Entry(Bucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.paymentgateway.filter;
 
-import io.github.bucket4j.Bucket;
+import com.example.paymentgateway.security.GatewayUserDetails;
+import com.example.paymentgateway.security.TokenVerifier;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -14,16 +16,36 @@ import java.io.IOException;
 @Component
 public class RateLimitingFilter extends OncePerRequestFilter {
     @Autowired
-    private Bucket apiBucket;
+    private KeyedRateLimiter rateLimiter;
+    @Autowired
+    private TokenVerifier tokenVerifier;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        if (apiBucket.tryConsume(1)) {
+        if (tryConsume(request)) {
             filterChain.doFilter(request, response);
         } else {
             response.setStatus(429); // 429 Too Many Requests
             response.getWriter().write("Too many requests");
         }
     }
+
+    // Most specific key wins: tenant (merchant/bank), then username, then client IP.
+    // Only verified principals name a key, so forged claims cannot mint fresh buckets.
+    private boolean tryConsume(HttpServletRequest request) {
+        UserDetails principal = tokenVerifier.verifiedPrincipal(request);
+        if (principal instanceof GatewayUserDetails gateway) {
+            if (gateway.getMerchantId() != null) {
+                return rateLimiter.tryConsume(KeyedRateLimiter.KeyClass.MERCHANT, gateway.getMerchantId());
+            }
+            if (gateway.getBankId() != null) {
+                return rateLimiter.tryConsume(KeyedRateLimiter.KeyClass.BANK, gateway.getBankId());
+            }
+        }
+        if (principal != null) {
+            return rateLimiter.tryConsume(KeyedRateLimiter.KeyClass.SUBJECT, principal.getUsername());
+        }
+        return rateLimiter.tryConsume(KeyedRateLimiter.KeyClass.IP, request.getRemoteAddr());
+    }
 }
@@ -0,0 +1,284 @@
+package com.example.paymentgateway.kafka;
+
+import com.example.paymentgateway.util.KeyedExecutor;
+import com.example.paymentgateway.util.LogUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumer execution engine for one topic. Batches handed over by a listener are processed on
+ * key-ordered worker lanes (records with the same key stay in order, different keys of the same
+ * partition run in parallel), and offsets are committed only up to the first record of each
+ * partition that is still in flight, so a restart never skips unprocessed records.
+ * A failing record is retried on its lane with backoff (later records of the same key wait behind
+ * it), then handed to the recoverer (dead-letter topic); its offset only completes once it was
+ * processed or recovered, so the commit watermark never passes an unhandled record.
+ * All methods taking a Consumer must be called on that consumer's thread.
+ */
+public class ConsumerPipeline<K, V> {
+    private static final Logger log = LogUtil.getLogger(ConsumerPipeline.class);
+
+    private static final long RECOVERY_RETRY_MS = 5000;
+
+    private final String topic;
+    private final KeyedExecutor workers;
+    private final java.util.function.Consumer<ConsumerRecord<K, V>> handler;
+    private final BackOff backOff;
+    private final ConsumerRecordRecoverer recoverer;
+    private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> lag = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter deadLettered;
+    private final Timer processing;
+
+    public ConsumerPipeline(String topic, int lanes, int laneCapacity,
+                            java.util.function.Consumer<ConsumerRecord<K, V>> handler,
+                            BackOff backOff, ConsumerRecordRecoverer recoverer, MeterRegistry meterRegistry) {
+        this.topic = topic;
+        this.handler = handler;
+        this.backOff = backOff;
+        this.recoverer = recoverer;
+        this.workers = new KeyedExecutor("consumer-" + topic, lanes, laneCapacity);
+        processed = Counter.builder("kafka.consumer.pipeline.records").tag("topic", topic).tag("outcome", "processed")
+                .register(meterRegistry);
+        failed = Counter.builder("kafka.consumer.pipeline.records").tag("topic", topic).tag("outcome", "failed")
+                .register(meterRegistry);
+        deadLettered = Counter.builder("kafka.consumer.pipeline.records").tag("topic", topic).tag("outcome", "dead-lettered")
+                .register(meterRegistry);
+        processing = Timer.builder("kafka.consumer.pipeline.processing").tag("topic", topic).register(meterRegistry);
+        Gauge.builder("kafka.consumer.pipeline.in-flight", inFlight, AtomicInteger::get).tag("topic", topic)
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.pipeline.lag", lag, l -> l.values().stream().mapToLong(Long::longValue).sum())
+                .tag("topic", topic).register(meterRegistry);
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Hands a polled batch to the worker lanes. Blocks while the target lane is full, which
+     * holds back the next poll instead of buffering without bound.
+     */
+    public void submit(List<ConsumerRecord<K, V>> records) {
+        for (ConsumerRecord<K, V> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            PartitionOffsets offsets = partitions.computeIfAbsent(partition, p -> new PartitionOffsets());
+            offsets.dispatched(record.offset());
+            inFlight.incrementAndGet();
+            workers.execute(laneKey(record), () -> process(record, partition, offsets));
+        }
+    }
+
+    /**
+     * Commits the contiguous progress of the consumer's partitions and refreshes the lag gauge.
+     */
+    public void commit(Consumer<?, ?> consumer) {
+        Collection<TopicPartition> assigned = consumer.assignment();
+        Map<TopicPartition, OffsetAndMetadata> offsets = committable(assigned);
+        if (!offsets.isEmpty()) {
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    // Later commits carry higher offsets for the same partitions, so nothing is lost
+                    log.warn("Offset commit for {} failed: {}", topic, e.toString());
+                }
+            });
+        }
+        for (TopicPartition partition : assigned) {
+            if (partition.topic().equals(topic)) {
+                OptionalLong current = consumer.currentLag(partition);
+                if (current.isPresent()) {
+                    lag.put(partition, current.getAsLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebalance hook: waits (bounded) for in-flight records of the revoked partitions, commits
+     * what completed and forgets the partitions.
+     */
+    public void drain(Consumer<?, ?> consumer, Collection<TopicPartition> revoked, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (TopicPartition partition : revoked) {
+            PartitionOffsets offsets = partitions.get(partition);
+            while (offsets != null && offsets.hasInFlight() && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        Map<TopicPartition, OffsetAndMetadata> offsets = committable(revoked);
+        if (!offsets.isEmpty()) {
+            try {
+                consumer.commitSync(offsets);
+            } catch (RuntimeException e) {
+                log.warn("Offset commit for revoked partitions of {} failed: {}", topic, e.toString());
+            }
+        }
+        forget(revoked);
+    }
+
+    public void forget(Collection<TopicPartition> lost) {
+        for (TopicPartition partition : lost) {
+            partitions.remove(partition);
+            lag.remove(partition);
+        }
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    // Offsets to commit: per partition, the first offset not yet processed, if it moved since the last commit
+    Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> assigned) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : assigned) {
+            PartitionOffsets tracker = partitions.get(partition);
+            if (tracker != null) {
+                long next = tracker.takeCommittable();
+                if (next >= 0) {
+                    offsets.put(partition, new OffsetAndMetadata(next));
+                }
+            }
+        }
+        return offsets;
+    }
+
+    private void process(ConsumerRecord<K, V> record, TopicPartition partition, PartitionOffsets offsets) {
+        long start = System.nanoTime();
+        boolean handled = false;
+        try {
+            handled = handleWithRetries(record, partition, offsets);
+        } finally {
+            processing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (handled) {
+                offsets.completed(record.offset());
+            }
+            // Otherwise the offset stays in flight: never committed, so the record is redelivered
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // True once the record was processed or dead-lettered; false if this node stopped owning it first
+    private boolean handleWithRetries(ConsumerRecord<K, V> record, TopicPartition partition, PartitionOffsets offsets) {
+        BackOffExecution execution = backOff.start();
+        while (true) {
+            try {
+                handler.accept(record);
+                processed.increment();
+                return true;
+            } catch (RuntimeException e) {
+                failed.increment();
+                long wait = execution.nextBackOff();
+                if (wait == BackOffExecution.STOP) {
+                    return recover(record, partition, offsets, e);
+                }
+                log.warn("Processing {}-{}@{} failed, retrying in {} ms: {}", record.topic(), record.partition(),
+                        record.offset(), wait, e.toString());
+                if (!pause(wait) || !owns(partition, offsets)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private boolean recover(ConsumerRecord<K, V> record, TopicPartition partition, PartitionOffsets offsets,
+                            RuntimeException failure) {
+        log.error("Processing {}-{}@{} failed after retries, dead-lettering", record.topic(), record.partition(),
+                record.offset(), failure);
+        while (true) {
+            try {
+                recoverer.accept(record, failure);
+                deadLettered.increment();
+                return true;
+            } catch (RuntimeException e) {
+                // Nowhere to put the record yet: hold the partition's watermark and keep trying
+                log.error("Dead-lettering {}-{}@{} failed: {}", record.topic(), record.partition(), record.offset(),
+                        e.toString());
+                if (!pause(RECOVERY_RETRY_MS) || !owns(partition, offsets)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    // A revoked or lost partition's records are redelivered to its new owner; stop working on them here
+    private boolean owns(TopicPartition partition, PartitionOffsets offsets) {
+        return partitions.get(partition) == offsets;
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static long laneKey(ConsumerRecord<?, ?> record) {
+        return record.key() != null ? record.key().hashCode() : record.partition();
+    }
+
+    /**
+     * In-flight offsets of one partition. dispatched() and takeCommittable() run on the consumer
+     * thread, completed() on the workers.
+     */
+    static final class PartitionOffsets {
+        private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+        private volatile long highestDispatched = -1;
+        private long lastCommitted = -1;
+
+        void dispatched(long offset) {
+            inFlight.add(offset);
+            highestDispatched = Math.max(highestDispatched, offset);
+        }
+
+        void completed(long offset) {
+            inFlight.remove(offset);
+        }
+
+        boolean hasInFlight() {
+            return !inFlight.isEmpty();
+        }
+
+        // Returns the next offset to commit, or -1 if there is no new contiguous progress
+        long takeCommittable() {
+            long dispatched = highestDispatched;
+            Long oldest = inFlight.ceiling(Long.MIN_VALUE); // null when empty, safe against concurrent removal
+            long next = oldest != null ? oldest : dispatched + 1;
+            if (next <= lastCommitted || next <= 0) {
+                return -1;
+            }
+            lastCommitted = next;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.paymentgateway.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Connects the pipelines to the listener containers: drains and commits on partition revocation,
+ * and commits progress made while a container is idle (no poll hands it new records).
+ * Both callbacks run on the consumer thread.
+ */
+@Component
+public class ConsumerPipelineRegistry implements ConsumerAwareRebalanceListener {
+    private final List<ConsumerPipeline<?, ?>> pipelines = new CopyOnWriteArrayList<>();
+
+    @Value("${kafka.pipeline.revoke-timeout-ms:10000}")
+    private long revokeTimeoutMs;
+
+    public void register(ConsumerPipeline<?, ?> pipeline) {
+        pipelines.add(pipeline);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (ConsumerPipeline<?, ?> pipeline : pipelines) {
+            List<TopicPartition> owned = partitions.stream().filter(p -> p.topic().equals(pipeline.getTopic())).toList();
+            if (!owned.isEmpty()) {
+                pipeline.drain(consumer, owned, revokeTimeoutMs);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Ownership is already gone, so nothing may be committed
+        for (ConsumerPipeline<?, ?> pipeline : pipelines) {
+            pipeline.forget(partitions);
+        }
+    }
+
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        Consumer<?, ?> consumer = event.getConsumer();
+        if (consumer == null) {
+            return;
+        }
+        for (ConsumerPipeline<?, ?> pipeline : pipelines) {
+            pipeline.commit(consumer);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pipelines.forEach(ConsumerPipeline::shutdown);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.paymentgateway.kafka;
+
+import com.example.paymentgateway.util.ExpiringCache;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+
+/**
+ * Consumer-side dedupe for the outbox's at-least-once delivery: remembers the outbox ids per topic
+ * whose handler completed and reports their redeliveries. An id is only recorded after success,
+ * so a redelivery of a record whose handling failed is processed again.
+ */
+@Component
+public class EventDeduplicator {
+    @Value("${outbox.dedupe.max-size:100000}")
+    private int maxSize;
+    @Value("${outbox.dedupe.ttl-ms:3600000}")
+    private long ttlMs;
+
+    private ExpiringCache<String, Boolean> seen;
+
+    @PostConstruct
+    void init() {
+        seen = new ExpiringCache<>(maxSize, ttlMs);
+    }
+
+    // True when the record's outbox id was already handled on its topic; records without the header never are
+    public boolean isDuplicate(ConsumerRecord<?, ?> record) {
+        String key = key(record);
+        return key != null && seen.get(key) != null;
+    }
+
+    // Call once the record's handler has completed
+    public void markProcessed(ConsumerRecord<?, ?> record) {
+        String key = key(record);
+        if (key != null) {
+            seen.put(key, Boolean.TRUE);
+        }
+    }
+
+    private static String key(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(OutboxRelay.OUTBOX_ID_HEADER);
+        return header != null ? record.topic() + ":" + ByteBuffer.wrap(header.value()).getLong() : null;
+    }
+}
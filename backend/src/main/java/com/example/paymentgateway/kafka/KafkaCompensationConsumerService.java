@@ -1,14 +1,103 @@
 package com.example.paymentgateway.kafka;
 
+import com.example.paymentgateway.service.CompensationService;
+import com.example.paymentgateway.util.LogUtil;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Batch consumer for compensation-events. Events the CompensationService could not apply are
+ * re-published to a retry topic with exponential backoff, and to a dead-letter topic once
+ * their attempts are exhausted. Retries live on their own topic so the main topic never waits.
+ */
 @Service
 public class KafkaCompensationConsumerService {
-    @KafkaListener(topics = "compensation-events", groupId = "payment-gateway-group")
-    public void listenCompensationEvents(ConsumerRecord<String, String> record) {
-        // Process compensation event (e.g., rollback, refund, etc.)
-        System.out.println("Received COMPENSATION event: " + record.value());
+    private static final Logger log = LogUtil.getLogger(KafkaCompensationConsumerService.class);
+    public static final String RETRY_TOPIC = "compensation-events-retry";
+    public static final String DLQ_TOPIC = "compensation-events-dlq";
+    static final String ATTEMPT_HEADER = "compensation-attempt";
+    static final String NOT_BEFORE_HEADER = "compensation-not-before";
+
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+    @Autowired
+    private CompensationService compensationService;
+    @Autowired
+    @Qualifier("paymentEventKafkaTemplate")
+    private KafkaTemplate<String, PaymentEvent> kafkaTemplate;
+
+    @Value("${compensation.retry.max-attempts:5}")
+    private int maxAttempts;
+    @Value("${compensation.retry.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+    @Value("${compensation.retry.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    // One group per topic: a slow or rebalancing consumer of one topic never pauses the others
+    @KafkaListener(topics = "compensation-events", groupId = "${kafka.consumer.group.compensation-events:payment-gateway-compensation}",
+            containerFactory = "compensationBatchListenerFactory")
+    public void listenCompensationEvents(List<ConsumerRecord<String, PaymentEvent>> records) {
+        handle(records);
+    }
+
+    @KafkaListener(topics = RETRY_TOPIC, groupId = "${kafka.consumer.group.compensation-retry:payment-gateway-compensation-retry}",
+            containerFactory = "compensationBatchListenerFactory", concurrency = "${compensation.retry.listener.concurrency:1}")
+    public void listenCompensationRetries(List<ConsumerRecord<String, PaymentEvent>> records) throws InterruptedException {
+        // Records are appended in time order, so the last one is due last; max-backoff-ms stays below max.poll.interval.ms
+        long wait = longHeader(records.get(records.size() - 1), NOT_BEFORE_HEADER) - System.currentTimeMillis();
+        if (wait > 0) {
+            Thread.sleep(Math.min(wait, maxBackoffMs));
+        }
+        handle(records);
+    }
+
+    void handle(List<ConsumerRecord<String, PaymentEvent>> records) {
+        Map<PaymentEvent, ConsumerRecord<String, PaymentEvent>> sources = new IdentityHashMap<>();
+        List<PaymentEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, PaymentEvent> record : records) {
+            if (record.value() == null || eventDeduplicator.isDuplicate(record)) {
+                continue; // undecodable or outbox redelivery
+            }
+            events.add(record.value());
+            sources.put(record.value(), record);
+        }
+        List<PaymentEvent> failed = compensationService.process(events);
+        List<CompletableFuture<?>> sends = new ArrayList<>(failed.size());
+        for (PaymentEvent event : failed) {
+            int attempt = (int) longHeader(sources.get(event), ATTEMPT_HEADER) + 1;
+            boolean exhausted = attempt >= maxAttempts;
+            if (exhausted) {
+                log.error("Compensation for transaction {} failed after {} attempts, dead-lettering", event.getTransactionId(), attempt);
+            }
+            ProducerRecord<String, PaymentEvent> out = new ProducerRecord<>(exhausted ? DLQ_TOPIC : RETRY_TOPIC, event.key(), event);
+            long backoff = Math.min(initialBackoffMs << Math.min(attempt - 1, 20), maxBackoffMs);
+            out.headers().add(ATTEMPT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(attempt).array());
+            out.headers().add(NOT_BEFORE_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(System.currentTimeMillis() + backoff).array());
+            sends.add(kafkaTemplate.send(out));
+        }
+        // Offsets are committed when the listener returns, so every failure must be safely re-published first
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).join();
+        // Applied or handed to the retry topic: only now is a redelivery a duplicate
+        sources.values().forEach(eventDeduplicator::markProcessed);
+    }
+
+    private static long longHeader(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? ByteBuffer.wrap(header.value()).getLong() : 0L;
     }
 }
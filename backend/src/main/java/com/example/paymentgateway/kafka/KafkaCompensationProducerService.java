@@ -1,6 +1,6 @@
 package com.example.paymentgateway.kafka;
 
-import org.springframework.kafka.core.KafkaTemplate;
+import com.example.paymentgateway.service.OutboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -9,9 +9,10 @@ public class KafkaCompensationProducerService {
     private static final String COMPENSATION_TOPIC = "compensation-events";
 
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private OutboxService outboxService;
 
-    public void sendCompensationEvent(String message) {
-        kafkaTemplate.send(COMPENSATION_TOPIC, message);
+    // Written to the outbox in the caller's transaction; OutboxRelay publishes it keyed by transaction id
+    public void sendCompensationEvent(PaymentEvent event) {
+        outboxService.enqueue(COMPENSATION_TOPIC, event.key(), PaymentEventCodec.encode(event));
     }
 }
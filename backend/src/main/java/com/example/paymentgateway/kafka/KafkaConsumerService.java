@@ -1,14 +1,65 @@
 package com.example.paymentgateway.kafka;
 
+import com.example.paymentgateway.service.DashboardStatsService;
+import com.example.paymentgateway.util.LogUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
 import org.springframework.stereotype.Service;
+import org.springframework.util.backoff.BackOff;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
 
 @Service
 public class KafkaConsumerService {
-    @KafkaListener(topics = "transactions", groupId = "payment-gateway-group")
-    public void listenTransactionEvents(ConsumerRecord<String, String> record) {
-        // Process transaction event (e.g., for saga orchestration, audit, etc.)
-        System.out.println("Received Kafka event: " + record.value());
+    private static final Logger log = LogUtil.getLogger(KafkaConsumerService.class);
+
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+    @Autowired
+    private ConsumerPipelineRegistry consumerPipelineRegistry;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BackOff pipelineBackOff;
+    @Autowired
+    private ConsumerRecordRecoverer pipelineDeadLetterRecoverer;
+
+    @Value("${kafka.pipeline.transactions.lanes:8}")
+    private int lanes;
+    @Value("${kafka.pipeline.lane-capacity:1000}")
+    private int laneCapacity;
+
+    private ConsumerPipeline<String, PaymentEvent> pipeline;
+
+    @PostConstruct
+    void init() {
+        pipeline = new ConsumerPipeline<>("transactions", lanes, laneCapacity, this::process, pipelineBackOff,
+                pipelineDeadLetterRecoverer, meterRegistry);
+        consumerPipelineRegistry.register(pipeline);
+    }
+
+    @KafkaListener(topics = "transactions", groupId = "${kafka.consumer.group.transactions:payment-gateway-transactions}",
+            containerFactory = "pipelineListenerFactory", concurrency = "${kafka.pipeline.transactions.concurrency:3}")
+    public void listenTransactionEvents(List<ConsumerRecord<String, PaymentEvent>> records, Consumer<?, ?> consumer) {
+        pipeline.submit(records);
+        pipeline.commit(consumer);
+    }
+
+    private void process(ConsumerRecord<String, PaymentEvent> record) {
+        if (record.value() == null || eventDeduplicator.isDuplicate(record)) {
+            return; // undecodable or outbox redelivery
+        }
+        log.debug("Received Kafka event: {}", record.value());
+        dashboardStatsService.record(record.value());
+        eventDeduplicator.markProcessed(record);
     }
 }
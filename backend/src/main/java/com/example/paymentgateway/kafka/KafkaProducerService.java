@@ -1,6 +1,6 @@
 package com.example.paymentgateway.kafka;
 
-import org.springframework.kafka.core.KafkaTemplate;
+import com.example.paymentgateway.service.OutboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -9,9 +9,10 @@ public class KafkaProducerService {
     private static final String TOPIC = "transactions";
 
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private OutboxService outboxService;
 
-    public void sendTransactionEvent(String message) {
-        kafkaTemplate.send(TOPIC, message);
+    // Written to the outbox in the caller's transaction; OutboxRelay publishes it keyed by transaction id
+    public void sendTransactionEvent(PaymentEvent event) {
+        outboxService.enqueue(TOPIC, event.key(), PaymentEventCodec.encode(event));
     }
 }
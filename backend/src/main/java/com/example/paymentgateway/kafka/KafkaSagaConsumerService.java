@@ -1,14 +1,65 @@
 package com.example.paymentgateway.kafka;
 
+import com.example.paymentgateway.service.PaymentOrchestrator;
+import com.example.paymentgateway.util.LogUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
 import org.springframework.stereotype.Service;
+import org.springframework.util.backoff.BackOff;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
 
 @Service
 public class KafkaSagaConsumerService {
-    @KafkaListener(topics = "saga-events", groupId = "payment-gateway-group")
-    public void listenSagaEvents(ConsumerRecord<String, String> record) {
-        // Process saga event (e.g., orchestrate distributed transaction steps)
-        System.out.println("Received SAGA event: " + record.value());
+    private static final Logger log = LogUtil.getLogger(KafkaSagaConsumerService.class);
+
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+    @Autowired
+    private PaymentOrchestrator paymentOrchestrator;
+    @Autowired
+    private ConsumerPipelineRegistry consumerPipelineRegistry;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BackOff pipelineBackOff;
+    @Autowired
+    private ConsumerRecordRecoverer pipelineDeadLetterRecoverer;
+
+    @Value("${kafka.pipeline.saga-events.lanes:8}")
+    private int lanes;
+    @Value("${kafka.pipeline.lane-capacity:1000}")
+    private int laneCapacity;
+
+    private ConsumerPipeline<String, PaymentEvent> pipeline;
+
+    @PostConstruct
+    void init() {
+        pipeline = new ConsumerPipeline<>("saga-events", lanes, laneCapacity, this::process, pipelineBackOff,
+                pipelineDeadLetterRecoverer, meterRegistry);
+        consumerPipelineRegistry.register(pipeline);
+    }
+
+    @KafkaListener(topics = "saga-events", groupId = "${kafka.consumer.group.saga-events:payment-gateway-saga}",
+            containerFactory = "pipelineListenerFactory", concurrency = "${kafka.pipeline.saga-events.concurrency:3}")
+    public void listenSagaEvents(List<ConsumerRecord<String, PaymentEvent>> records, Consumer<?, ?> consumer) {
+        pipeline.submit(records);
+        pipeline.commit(consumer);
+    }
+
+    private void process(ConsumerRecord<String, PaymentEvent> record) {
+        if (record.value() == null || eventDeduplicator.isDuplicate(record)) {
+            return; // undecodable or outbox redelivery
+        }
+        log.debug("Received SAGA event: {}", record.value());
+        paymentOrchestrator.onSagaEvent(record.value());
+        eventDeduplicator.markProcessed(record);
     }
 }
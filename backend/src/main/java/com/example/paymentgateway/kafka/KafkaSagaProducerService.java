@@ -1,6 +1,6 @@
 package com.example.paymentgateway.kafka;
 
-import org.springframework.kafka.core.KafkaTemplate;
+import com.example.paymentgateway.service.OutboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -9,9 +9,10 @@ public class KafkaSagaProducerService {
     private static final String SAGA_TOPIC = "saga-events";
 
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private OutboxService outboxService;
 
-    public void sendSagaEvent(String message) {
-        kafkaTemplate.send(SAGA_TOPIC, message);
+    // Written to the outbox in the caller's transaction; OutboxRelay publishes it keyed by transaction id
+    public void sendSagaEvent(PaymentEvent event) {
+        outboxService.enqueue(SAGA_TOPIC, event.key(), PaymentEventCodec.encode(event));
     }
 }
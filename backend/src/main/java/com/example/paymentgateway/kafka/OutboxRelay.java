@@ -0,0 +1,158 @@
+package com.example.paymentgateway.kafka;
+
+import com.example.paymentgateway.model.OutboxEvent;
+import com.example.paymentgateway.repository.OutboxEventRepository;
+import com.example.paymentgateway.util.LogUtil;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the outbox table to Kafka in large batches. A batch is sent without waiting per record
+ * (the producer batches/compresses it), then marked published only for records the broker acked.
+ * The batch is claimed with a lease in a short transaction and sent with no row lock or pooled
+ * connection held while waiting for acks; a relay that dies mid-batch leaves the lease to expire.
+ * A batch holds at most the oldest pending event per key, so events of one payment are published
+ * strictly one after another, in the order they were written, whichever node relays them.
+ * Delivery is at-least-once: a crash between send and mark re-sends the batch, so every record
+ * carries its outbox id in the {@value #OUTBOX_ID_HEADER} header for consumers to dedupe on.
+ * Batches go through the "kafka" circuit breaker: while the broker is failing, events simply
+ * wait in the outbox instead of tying up the relay in send timeouts.
+ */
+@Component
+public class OutboxRelay {
+    public static final String OUTBOX_ID_HEADER = "outbox-id";
+
+    private static final Logger log = LogUtil.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+    // Must outlast send-timeout-ms, or another relay re-sends a batch still waiting for acks
+    @Value("${outbox.relay.lease-ms:60000}")
+    private long leaseMs;
+    @Value("${outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private TransactionTemplate transactionTemplate;
+    private CircuitBreaker kafkaCircuitBreaker;
+
+    @PostConstruct
+    void init() {
+        if (leaseMs <= sendTimeoutMs) {
+            throw new IllegalStateException("outbox.relay.lease-ms must be greater than outbox.relay.send-timeout-ms");
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        kafkaCircuitBreaker = circuitBreakerRegistry.circuitBreaker("kafka");
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:100}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed > 0); // later events of a key become eligible once its head is out
+    }
+
+    // Claims a batch, sends it outside any transaction, then marks what was acked and releases the rest
+    int relayBatch() {
+        if (!kafkaCircuitBreaker.tryAcquirePermission()) {
+            return 0; // breaker open: events stay pending until the broker recovers
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            List<OutboxEvent> locked = outboxEventRepository.lockPendingBatch(batchSize, now);
+            if (!locked.isEmpty()) {
+                outboxEventRepository.claim(locked.stream().map(OutboxEvent::getId).toList(),
+                        now.plus(Duration.ofMillis(leaseMs)));
+            }
+            return locked;
+        });
+        if (batch == null || batch.isEmpty()) {
+            kafkaCircuitBreaker.releasePermission();
+            return 0;
+        }
+        long start = System.nanoTime();
+        List<CompletableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(event.getTopic(), event.getEventKey(),
+                    event.getPayload());
+            record.headers().add(OUTBOX_ID_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(event.getId()).array());
+            sends.add(kafkaTemplate.send(record));
+        }
+        kafkaTemplate.flush();
+
+        List<Long> published = new ArrayList<>(batch.size());
+        List<Long> unacked = new ArrayList<>();
+        Exception failure = null;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < sends.size(); i++) {
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                published.add(batch.get(i).getId());
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Outbox event {} not acknowledged, will retry: {}", batch.get(i).getId(), e.getMessage());
+                unacked.add(batch.get(i).getId());
+                failure = failure != null ? failure : e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure != null ? failure : e;
+                break; // the rest keep their lease until it expires
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (failure == null) {
+            kafkaCircuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+        } else {
+            kafkaCircuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, failure);
+        }
+        if (!published.isEmpty() || !unacked.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!published.isEmpty()) {
+                    outboxEventRepository.markPublished(published, LocalDateTime.now());
+                }
+                if (!unacked.isEmpty()) {
+                    outboxEventRepository.releaseClaims(unacked);
+                }
+            });
+        }
+        // A partially failed batch ends this round; the remainder is retried on the next tick
+        return published.size() == batch.size() ? batch.size() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup.interval-ms:3600000}")
+    public void purgePublished() {
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours)));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.paymentgateway.kafka;
+
+import com.example.paymentgateway.model.Money;
+import com.example.paymentgateway.model.Transaction;
+
+import java.time.ZoneId;
+
+/**
+ * Typed event published on the transactions, saga-events and compensation-events topics.
+ * Serialized with PaymentEventCodec; amounts travel as long minor units of the event's currency.
+ */
+public class PaymentEvent {
+    private final PaymentEventType type;
+    private final long transactionId;
+    private final String tenant; // merchant or bank id, null for non-tenant users
+    private final long amountMinor;
+    private final String status;
+    private final long timestampMillis;
+    private final long userId; // owning user, 0 when unknown (events from v1 producers)
+    private final String currency; // ISO 4217 code, null when unknown (events from v1/v2 producers)
+
+    public PaymentEvent(PaymentEventType type, long transactionId, String tenant, long amountMinor,
+                        String status, long timestampMillis) {
+        this(type, transactionId, tenant, amountMinor, status, timestampMillis, 0L);
+    }
+
+    public PaymentEvent(PaymentEventType type, long transactionId, String tenant, long amountMinor,
+                        String status, long timestampMillis, long userId) {
+        this(type, transactionId, tenant, amountMinor, status, timestampMillis, userId, null);
+    }
+
+    public PaymentEvent(PaymentEventType type, long transactionId, String tenant, long amountMinor,
+                        String status, long timestampMillis, long userId, String currency) {
+        this.type = type;
+        this.transactionId = transactionId;
+        this.tenant = tenant;
+        this.amountMinor = amountMinor;
+        this.status = status;
+        this.timestampMillis = timestampMillis;
+        this.userId = userId;
+        this.currency = currency;
+    }
+
+    public static PaymentEvent of(PaymentEventType type, Transaction transaction) {
+        String tenant = transaction.getMerchantId() != null ? transaction.getMerchantId() : transaction.getBankId();
+        Money money = transaction.getMoney();
+        return new PaymentEvent(type, transaction.getId(), tenant,
+                money.getMinorUnits(),
+                transaction.getStatus().name(),
+                transaction.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                transaction.getUser() != null && transaction.getUser().getId() != null ? transaction.getUser().getId() : 0L,
+                money.getCurrency().getCurrencyCode());
+    }
+
+    // Next saga step for the same payment, carrying the same amount/currency/tenant/user
+    public PaymentEvent next(PaymentEventType nextType, String nextStatus) {
+        return new PaymentEvent(nextType, transactionId, tenant, amountMinor, nextStatus, System.currentTimeMillis(),
+                userId, currency);
+    }
+
+    public String key() {
+        return Long.toString(transactionId);
+    }
+
+    public PaymentEventType getType() { return type; }
+    public long getTransactionId() { return transactionId; }
+    public String getTenant() { return tenant; }
+    public long getAmountMinor() { return amountMinor; }
+    public String getStatus() { return status; }
+    public long getTimestampMillis() { return timestampMillis; }
+    public long getUserId() { return userId; }
+    public String getCurrency() { return currency; }
+
+    @Override
+    public String toString() {
+        return type + "{transactionId=" + transactionId + ", tenant=" + tenant + ", amountMinor=" + amountMinor
+                + ", currency=" + currency + ", status=" + status + ", timestamp=" + timestampMillis + ", userId=" + userId + "}";
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.paymentgateway.kafka;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of PaymentEvent.
+ *
+ * <pre>
+ * header : magic 'P' (1) | version (1) | body length (2, unsigned)
+ * body v1: type (1) | status (1) | transactionId (8) | amountMinor (8) | timestampMillis (8)
+ *          | tenant length (2, 0xFFFF = null) | tenant UTF-8
+ * body v2: v1 body | userId (8, 0 = unknown)
+ * body v3: v2 body | currency (3, ISO 4217 ASCII, zeros = unknown)
+ * </pre>
+ *
+ * Schema evolution: fields are only ever appended to the body and bump the version. Readers
+ * decode the fields they know and skip the rest of the body using its length, so old consumers
+ * keep reading events from newer producers; type and status codes are never reused.
+ * An incompatible change needs a new magic byte (and in practice a new topic).
+ */
+public final class PaymentEventCodec {
+    public static final byte MAGIC = 'P';
+    public static final byte VERSION = 3;
+
+    private static final int HEADER_SIZE = 4;
+    private static final int CURRENCY_SIZE = 3;
+    private static final int FIXED_BODY_SIZE = 1 + 1 + 8 + 8 + 8 + 2 + 8 + CURRENCY_SIZE;
+    private static final int NULL_TENANT = 0xFFFF;
+
+    // Status wire codes; like event type codes these are never renumbered
+    private static final String[] STATUSES = {null, "PENDING", "SUCCESS", "FAILED", "AUTHORIZED", "COMPENSATED", "REFUNDED",
+            "COMPENSATING", "REFUND_PENDING"}; // append only: codes are on the wire
+
+    private PaymentEventCodec() {
+    }
+
+    public static byte[] encode(PaymentEvent event) {
+        byte[] tenant = event.getTenant() != null ? event.getTenant().getBytes(StandardCharsets.UTF_8) : null;
+        int bodySize = FIXED_BODY_SIZE + (tenant != null ? tenant.length : 0);
+        byte[] out = new byte[HEADER_SIZE + bodySize];
+        ByteBuffer buffer = ByteBuffer.wrap(out);
+        buffer.put(MAGIC).put(VERSION).putShort((short) bodySize);
+        buffer.put((byte) event.getType().code());
+        buffer.put((byte) statusCode(event.getStatus()));
+        buffer.putLong(event.getTransactionId());
+        buffer.putLong(event.getAmountMinor());
+        buffer.putLong(event.getTimestampMillis());
+        if (tenant == null) {
+            buffer.putShort((short) NULL_TENANT);
+        } else {
+            buffer.putShort((short) tenant.length).put(tenant);
+        }
+        buffer.putLong(event.getUserId());
+        if (event.getCurrency() != null) {
+            buffer.put(event.getCurrency().getBytes(StandardCharsets.US_ASCII), 0, CURRENCY_SIZE);
+        } // else left as zeros
+        return out;
+    }
+
+    // Reads one event starting at the buffer's position, without copying the underlying bytes.
+    // Reads are confined to the declared body, so a truncated or corrupt event fails with
+    // IllegalArgumentException instead of reading into whatever follows it
+    public static PaymentEvent decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.get() != MAGIC) {
+            throw new IllegalArgumentException("Not a payment event");
+        }
+        int version = buffer.get();
+        if (version < 1) {
+            throw new IllegalArgumentException("Unsupported payment event version " + version);
+        }
+        int bodySize = buffer.getShort() & 0xFFFF;
+        if (bodySize > buffer.remaining()) {
+            throw new IllegalArgumentException("Truncated payment event: body of " + bodySize + " bytes, "
+                    + buffer.remaining() + " available");
+        }
+        int bodyEnd = buffer.position() + bodySize;
+        int limit = buffer.limit();
+        buffer.limit(bodyEnd);
+        try {
+            PaymentEventType type = PaymentEventType.fromCode(buffer.get());
+            String status = statusOf(buffer.get() & 0xFF);
+            long transactionId = buffer.getLong();
+            long amountMinor = buffer.getLong();
+            long timestampMillis = buffer.getLong();
+            int tenantLength = buffer.getShort() & 0xFFFF;
+            String tenant = null;
+            if (tenantLength != NULL_TENANT) {
+                if (tenantLength > buffer.remaining()) {
+                    throw new IllegalArgumentException("Payment event tenant overruns its body");
+                }
+                tenant = decodeUtf8(buffer, tenantLength);
+            }
+            long userId = version >= 2 ? buffer.getLong() : 0L;
+            String currency = version >= 3 ? decodeCurrency(buffer) : null;
+            buffer.position(bodyEnd); // skip fields appended by newer versions
+            return new PaymentEvent(type, transactionId, tenant, amountMinor, status, timestampMillis, userId, currency);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Payment event body shorter than version " + version + " requires");
+        } finally {
+            buffer.limit(limit);
+        }
+    }
+
+    private static String decodeUtf8(ByteBuffer buffer, int length) {
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static String decodeCurrency(ByteBuffer buffer) {
+        if (buffer.get(buffer.position()) == 0) {
+            buffer.position(buffer.position() + CURRENCY_SIZE);
+            return null;
+        }
+        return new String(new byte[] {buffer.get(), buffer.get(), buffer.get()}, StandardCharsets.US_ASCII);
+    }
+
+    private static int statusCode(String status) {
+        for (int i = 1; i < STATUSES.length; i++) {
+            if (STATUSES[i].equalsIgnoreCase(status)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static String statusOf(int code) {
+        return code < STATUSES.length ? STATUSES[code] : null;
+    }
+}
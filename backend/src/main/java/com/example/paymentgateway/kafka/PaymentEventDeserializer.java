@@ -0,0 +1,13 @@
+package com.example.paymentgateway.kafka;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.ByteBuffer;
+
+// Configured as the delegate of ErrorHandlingDeserializer, which only calls the byte[] variant
+public class PaymentEventDeserializer implements Deserializer<PaymentEvent> {
+    @Override
+    public PaymentEvent deserialize(String topic, byte[] data) {
+        return data != null ? PaymentEventCodec.decode(ByteBuffer.wrap(data)) : null;
+    }
+}
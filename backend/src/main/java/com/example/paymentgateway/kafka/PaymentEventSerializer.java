@@ -0,0 +1,10 @@
+package com.example.paymentgateway.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+public class PaymentEventSerializer implements Serializer<PaymentEvent> {
+    @Override
+    public byte[] serialize(String topic, PaymentEvent event) {
+        return event != null ? PaymentEventCodec.encode(event) : null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.paymentgateway.kafka;
+
+// Wire codes are part of the event schema: never renumber or reuse a code
+public enum PaymentEventType {
+    UNKNOWN(0),
+    TRANSACTION_CREATED(1),
+    SAGA_STARTED(2),
+    COMPENSATION_REQUESTED(3),
+    PAYMENT_AUTHORIZED(4),
+    PAYMENT_CAPTURED(5),
+    PAYMENT_FAILED(6),
+    PAYMENT_COMPENSATED(7),
+    REFUND_REQUESTED(8),
+    PAYMENT_REFUNDED(9);
+
+    private static final PaymentEventType[] BY_CODE = new PaymentEventType[256];
+
+    static {
+        for (PaymentEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    PaymentEventType(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    // Codes written by newer producers decode as UNKNOWN instead of failing
+    public static PaymentEventType fromCode(int code) {
+        PaymentEventType type = BY_CODE[code & 0xFF];
+        return type != null ? type : UNKNOWN;
+    }
+}
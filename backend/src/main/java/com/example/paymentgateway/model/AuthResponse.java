@@ -2,11 +2,17 @@ package com.example.paymentgateway.model;
 
 public class AuthResponse {
     private String token;
+    private String refreshToken;
 
     public AuthResponse(String token) {
         this.token = token;
     }
 
+    public AuthResponse(String token, String refreshToken) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+    }
+
     public String getToken() {
         return token;
     }
@@ -14,4 +20,12 @@ public class AuthResponse {
     public void setToken(String token) {
         this.token = token;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.paymentgateway.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Currency;
+
+/**
+ * Stores a java.util.Currency as its three-letter ISO 4217 code.
+ */
+@Converter(autoApply = true)
+public class CurrencyConverter implements AttributeConverter<Currency, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Currency currency) {
+        return currency != null ? currency.getCurrencyCode() : null;
+    }
+
+    @Override
+    public Currency convertToEntityAttribute(String code) {
+        return code != null ? Currency.getInstance(code.trim()) : null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.paymentgateway.model;
+
+import java.util.List;
+
+public class DashboardStats {
+    private final StatsTotals total;
+    private final List<Bucket> hourly; // oldest first, empty buckets omitted
+    private final List<Bucket> daily;
+
+    public DashboardStats(StatsTotals total, List<Bucket> hourly, List<Bucket> daily) {
+        this.total = total;
+        this.hourly = hourly;
+        this.daily = daily;
+    }
+
+    // Bucket start is epoch millis (UTC hour or day boundary)
+    public record Bucket(long start, StatsTotals totals) {
+    }
+
+    public StatsTotals getTotal() { return total; }
+    public List<Bucket> getHourly() { return hourly; }
+    public List<Bucket> getDaily() { return daily; }
+}
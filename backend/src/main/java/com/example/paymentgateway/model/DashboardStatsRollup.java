@@ -0,0 +1,118 @@
+package com.example.paymentgateway.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Checkpointed dashboard counters for one (scope, currency, granularity, bucket). Rows are only ever
+ * incremented by DashboardStatsService's upsert, so every node's deltas add up.
+ */
+@Entity
+@Table(name = "dashboard_stats_rollups")
+@IdClass(DashboardStatsRollup.Key.class)
+public class DashboardStatsRollup {
+    public static final String TOTAL = "TOTAL";
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+
+    // "user:<id>" or "tenant:<merchant/bank id>"
+    @Id
+    @Column(length = 64)
+    private String scope;
+
+    // ISO 4217 code; amounts in this row are minor units of it
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Id
+    @Column(length = 8)
+    private String granularity;
+
+    // Epoch millis of the UTC hour/day boundary; 0 for the all-time total
+    @Id
+    @Column(name = "bucket_start")
+    private long bucketStart;
+
+    @Column(name = "tx_count", nullable = false)
+    private long count;
+
+    @Column(name = "volume_minor", nullable = false)
+    private long volumeMinor;
+
+    @Column(nullable = false)
+    private long succeeded;
+
+    @Column(name = "succeeded_minor", nullable = false)
+    private long succeededMinor;
+
+    @Column(nullable = false)
+    private long failed;
+
+    @Column(nullable = false)
+    private long refunded;
+
+    @Column(name = "refunded_minor", nullable = false)
+    private long refundedMinor;
+
+    public StatsTotals toTotals() {
+        return new StatsTotals(count, volumeMinor, succeeded, succeededMinor, failed, refunded, refundedMinor);
+    }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String scope;
+        private String currency;
+        private String granularity;
+        private long bucketStart;
+
+        public Key() {
+        }
+
+        public Key(String scope, String currency, String granularity, long bucketStart) {
+            this.scope = scope;
+            this.currency = currency;
+            this.granularity = granularity;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return bucketStart == key.bucketStart && Objects.equals(scope, key.scope)
+                    && Objects.equals(currency, key.currency) && Objects.equals(granularity, key.granularity);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, currency, granularity, bucketStart);
+        }
+    }
+
+    // Getters and setters
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+    public String getGranularity() { return granularity; }
+    public void setGranularity(String granularity) { this.granularity = granularity; }
+    public long getBucketStart() { return bucketStart; }
+    public void setBucketStart(long bucketStart) { this.bucketStart = bucketStart; }
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public long getVolumeMinor() { return volumeMinor; }
+    public void setVolumeMinor(long volumeMinor) { this.volumeMinor = volumeMinor; }
+    public long getSucceeded() { return succeeded; }
+    public void setSucceeded(long succeeded) { this.succeeded = succeeded; }
+    public long getSucceededMinor() { return succeededMinor; }
+    public void setSucceededMinor(long succeededMinor) { this.succeededMinor = succeededMinor; }
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+    public long getRefunded() { return refunded; }
+    public void setRefunded(long refunded) { this.refunded = refunded; }
+    public long getRefundedMinor() { return refundedMinor; }
+    public void setRefundedMinor(long refundedMinor) { this.refundedMinor = refundedMinor; }
+}
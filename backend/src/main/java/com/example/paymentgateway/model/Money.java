@@ -0,0 +1,256 @@
+package com.example.paymentgateway.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable monetary amount held as long minor units (cents, yen, fils...) of an ISO 4217 currency.
+ * Arithmetic is exact long arithmetic: overflow and currency mismatches throw instead of
+ * silently wrapping or mixing, and the only rounding happens where a caller names a RoundingMode.
+ * BigDecimal is used only at the edges (parsing request amounts, JSON/JPA decimal views).
+ */
+public final class Money implements Comparable<Money> {
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+    private static final long BASIS_POINTS = 10_000L;
+    // Sign, 19 digits of a long, decimal point and a leading zero
+    private static final int MAX_DECIMAL_CHARS = 22;
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        fractionDigits(currency); // rejects pseudo-currencies (XXX, XAU...) up front
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money zero(Currency currency) {
+        return ofMinor(0L, currency);
+    }
+
+    /**
+     * Exact conversion: an amount with more decimals than the currency has minor units
+     * (e.g. 10.005 USD or 1.5 JPY) is rejected rather than rounded.
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        return of(amount, currency, RoundingMode.UNNECESSARY);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency, RoundingMode rounding) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        int digits = fractionDigits(currency);
+        try {
+            return new Money(amount.setScale(digits, rounding).unscaledValue().longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " is not representable in "
+                    + currency.getCurrencyCode());
+        }
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(minorUnits, factor), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    // Fee/interest style fraction of this amount, e.g. 290 bp = 2.9%
+    public Money percentage(long basisPoints, RoundingMode rounding) {
+        return new Money(divide(Math.multiplyExact(minorUnits, basisPoints), BASIS_POINTS, rounding), currency);
+    }
+
+    /**
+     * Splits the amount into {@code parts} shares that add back up to exactly this amount;
+     * the leftover minor units go one each to the first shares.
+     */
+    public Money[] allocate(int parts) {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("parts must be positive");
+        }
+        long share = minorUnits / parts;
+        long remainder = minorUnits % parts;
+        long step = Long.signum(remainder);
+        Money[] shares = new Money[parts];
+        for (int i = 0; i < parts; i++) {
+            long extra = i < Math.abs(remainder) ? step : 0L;
+            shares[i] = new Money(share + extra, currency);
+        }
+        return shares;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public BigDecimal toDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    // Writes the plain decimal form (e.g. -12.05) without building a BigDecimal
+    public void appendDecimal(Appendable out) throws IOException {
+        appendDecimal(minorUnits, currency.getDefaultFractionDigits(), out);
+    }
+
+    // Formats into a small char buffer and hands it over in one write, not one call per character
+    public static void appendDecimal(long minorUnits, int fractionDigits, Appendable out) throws IOException {
+        char[] buf = new char[MAX_DECIMAL_CHARS];
+        int start = formatDecimal(minorUnits, fractionDigits, buf);
+        if (out instanceof Writer writer) {
+            writer.write(buf, start, buf.length - start);
+        } else {
+            out.append(CharBuffer.wrap(buf, start, buf.length - start));
+        }
+    }
+
+    // Fills buf from the end and returns the start index. Works on the non-positive value so
+    // Long.MIN_VALUE needs no special case.
+    private static int formatDecimal(long minorUnits, int fractionDigits, char[] buf) {
+        int pos = buf.length;
+        long value = minorUnits < 0 ? minorUnits : -minorUnits;
+        for (int i = 0; i < fractionDigits; i++) {
+            buf[--pos] = (char) ('0' - value % 10);
+            value /= 10;
+        }
+        if (fractionDigits > 0) {
+            buf[--pos] = '.';
+        }
+        do {
+            buf[--pos] = (char) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (minorUnits < 0) {
+            buf[--pos] = '-';
+        }
+        return pos;
+    }
+
+    public static int fractionDigits(Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency is required");
+        }
+        int digits = currency.getDefaultFractionDigits();
+        if (digits < 0 || digits >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Unsupported currency " + currency.getCurrencyCode());
+        }
+        return digits;
+    }
+
+    // Integer division of minor units with an explicit rounding rule, all in long arithmetic
+    static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = (dividend < 0) == (divisor < 0) ? 1 : -1;
+        long twiceRemainder = Math.abs(remainder) * 2;
+        long absDivisor = Math.abs(divisor);
+        boolean awayFromZero = switch (rounding) {
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+            case DOWN -> false;
+            case UP -> true;
+            case FLOOR -> sign < 0;
+            case CEILING -> sign > 0;
+            case HALF_UP -> twiceRemainder >= absDivisor;
+            case HALF_DOWN -> twiceRemainder > absDivisor;
+            case HALF_EVEN -> twiceRemainder > absDivisor || (twiceRemainder == absDivisor && (quotient & 1) != 0);
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency.getCurrencyCode()
+                    + " vs " + other.currency.getCurrencyCode());
+        }
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toDecimal().toPlainString() + " " + currency.getCurrencyCode();
+    }
+
+    // Getters
+    public long getMinorUnits() { return minorUnits; }
+    public Currency getCurrency() { return currency; }
+
+    /**
+     * Mutable running totals per currency for aggregation loops: adding a raw long amount
+     * allocates nothing once a currency has been seen. Not thread-safe.
+     */
+    public static final class Totals {
+        private final Map<Currency, long[]> sums = new HashMap<>(4);
+
+        public Totals add(Money amount) {
+            return add(amount.minorUnits, amount.currency);
+        }
+
+        public Totals add(long minorUnits, Currency currency) {
+            long[] sum = sums.get(currency);
+            if (sum == null) {
+                fractionDigits(currency);
+                sum = new long[1];
+                sums.put(currency, sum);
+            }
+            sum[0] = Math.addExact(sum[0], minorUnits);
+            return this;
+        }
+
+        public Money get(Currency currency) {
+            long[] sum = sums.get(currency);
+            return Money.ofMinor(sum != null ? sum[0] : 0L, currency);
+        }
+
+        public Set<Currency> currencies() {
+            return sums.keySet();
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package com.example.paymentgateway.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Generated;
+
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notification_username_stream_seq", columnList = "username, stream_seq")
+})
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_seq")
+    @SequenceGenerator(name = "notification_seq", sequenceName = "notifications_seq", allocationSize = 50)
     private Long id;
 
+    // Stream position, assigned by the database on insert and read back. Ids come from a pooled
+    // sequence and are not ordered across nodes, so SSE event ids and Last-Event-ID resume use this
+    @JsonIgnore
+    @Generated
+    @Column(name = "stream_seq", columnDefinition = "bigserial", insertable = false, updatable = false)
+    private Long streamSeq;
+
     @NotBlank
     @Column(nullable = false, length = 255)
     private String message;
@@ -30,6 +43,8 @@ public class Notification {
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public Long getStreamSeq() { return streamSeq; }
+    public void setStreamSeq(Long streamSeq) { this.streamSeq = streamSeq; }
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
     public String getUsername() { return username; }
@@ -0,0 +1,61 @@
+package com.example.paymentgateway.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    // Database-assigned insertion order. Ids come from a pooled sequence and are not ordered across
+    // nodes, so per-key publish order follows this column instead
+    @Column(name = "relay_seq", columnDefinition = "bigserial", insertable = false, updatable = false)
+    private Long relaySeq;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    // Kafka record key (transaction id) so all events of one payment land on the same partition
+    @Column(name = "event_key", length = 64)
+    private String eventKey;
+
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Null until the relay has had the event acknowledged by the broker
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    // Set while a relay is sending the event; another relay may take it once this has passed
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    // Business logic methods
+    public boolean isPublished() {
+        return publishedAt != null;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getRelaySeq() { return relaySeq; }
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+    public String getEventKey() { return eventKey; }
+    public void setEventKey(String eventKey) { this.eventKey = eventKey; }
+    public byte[] getPayload() { return payload; }
+    public void setPayload(byte[] payload) { this.payload = payload; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getPublishedAt() { return publishedAt; }
+    public void setPublishedAt(LocalDateTime publishedAt) { this.publishedAt = publishedAt; }
+    public LocalDateTime getClaimedUntil() { return claimedUntil; }
+    public void setClaimedUntil(LocalDateTime claimedUntil) { this.claimedUntil = claimedUntil; }
+}
@@ -0,0 +1,95 @@
+package com.example.paymentgateway.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+
+@Entity
+@Table(name = "payment_links", indexes = {
+    @Index(name = "uk_payment_link_code", columnList = "code", unique = true),
+    @Index(name = "idx_payment_link_owner", columnList = "user_id, created_at")
+})
+public class PaymentLink {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_link_seq")
+    @SequenceGenerator(name = "payment_link_seq", sequenceName = "payment_links_seq", allocationSize = 50)
+    private Long id;
+
+    // Public short code shared in the link URL
+    @Column(nullable = false, length = 16)
+    private String code;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    // Null on links created before currencies were recorded: the default currency applies
+    @Column(length = 3)
+    private Currency currency;
+
+    @Column(length = 255)
+    private String description;
+
+    @JsonIgnore // never serialize the owning user (lazy proxy, password hash)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "merchant_id", length = 36)
+    private String merchantId;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    // Null = never expires
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    // Null = unlimited; use_count is only ever changed by the repository's conditional updates
+    @Column(name = "max_uses")
+    private Integer maxUses;
+
+    @Column(name = "use_count", nullable = false)
+    private int useCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Business logic methods
+    public boolean isPayable(LocalDateTime now) {
+        return active
+                && (expiresAt == null || expiresAt.isAfter(now))
+                && (maxUses == null || useCount < maxUses);
+    }
+
+    public void deactivate() {
+        this.active = false;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public Currency getCurrency() { return currency; }
+    public void setCurrency(Currency currency) { this.currency = currency; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    public String getMerchantId() { return merchantId; }
+    public void setMerchantId(String merchantId) { this.merchantId = merchantId; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    public Integer getMaxUses() { return maxUses; }
+    public void setMaxUses(Integer maxUses) { this.maxUses = maxUses; }
+    public int getUseCount() { return useCount; }
+    public void setUseCount(int useCount) { this.useCount = useCount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
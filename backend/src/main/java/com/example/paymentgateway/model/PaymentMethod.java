@@ -1,5 +1,6 @@
 package com.example.paymentgateway.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -9,10 +10,12 @@ import jakarta.validation.constraints.Size;
     @Index(name = "idx_payment_method_user", columnList = "user_id"),
     @Index(name = "idx_payment_method_merchant", columnList = "merchant_id"),
     @Index(name = "idx_payment_method_bank", columnList = "bank_id")
+    // idx_payment_method_usable (user_id) WHERE active AND verified is partial, so it lives in schema.sql
 })
 public class PaymentMethod {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_method_seq")
+    @SequenceGenerator(name = "payment_method_seq", sequenceName = "payment_methods_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -31,6 +34,7 @@ public class PaymentMethod {
     @Column(nullable = false)
     private boolean verified = false; // Business rule: must be verified before use
 
+    @JsonIgnore // never serialize the owning user (lazy proxy, password hash)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user; // Each payment method belongs to a user (tenant context)
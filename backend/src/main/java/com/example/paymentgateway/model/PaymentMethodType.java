@@ -0,0 +1,26 @@
+package com.example.paymentgateway.model;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Supported payment method types. PaymentMethod.type stores the constant's name.
+ */
+public enum PaymentMethodType {
+    CREDIT_CARD,
+    BANK_TRANSFER;
+
+    private static final Map<String, PaymentMethodType> BY_NAME = new HashMap<>();
+
+    static {
+        for (PaymentMethodType type : values()) {
+            BY_NAME.put(type.name(), type);
+        }
+    }
+
+    // Case-insensitive lookup; null when the type is not supported
+    public static PaymentMethodType fromName(String name) {
+        return name != null ? BY_NAME.get(name.toUpperCase(Locale.ROOT)) : null;
+    }
+}
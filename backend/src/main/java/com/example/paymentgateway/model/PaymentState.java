@@ -0,0 +1,52 @@
+package com.example.paymentgateway.model;
+
+/**
+ * Payment saga states and the Transaction.status value each one is stored as.
+ * INITIATED -> AUTHORIZED -> CAPTURED, with FAILED reachable from INITIATED/AUTHORIZED
+ * and COMPENSATED reachable from FAILED (through COMPENSATING) once an authorization has been
+ * voided. A CAPTURED payment can later be REFUNDED, through REFUND_PENDING. Legal moves come from TransactionStatus's table.
+ */
+public enum PaymentState {
+    INITIATED(TransactionStatus.PENDING),
+    AUTHORIZED(TransactionStatus.AUTHORIZED),
+    CAPTURED(TransactionStatus.SUCCESS),
+    FAILED(TransactionStatus.FAILED),
+    COMPENSATED(TransactionStatus.COMPENSATED),
+    REFUNDED(TransactionStatus.REFUNDED),
+    COMPENSATING(TransactionStatus.COMPENSATING),
+    REFUND_PENDING(TransactionStatus.REFUND_PENDING);
+
+    private static final PaymentState[] BY_STATUS = new PaymentState[TransactionStatus.values().length];
+
+    static {
+        for (PaymentState state : values()) {
+            BY_STATUS[state.status.ordinal()] = state;
+        }
+    }
+
+    private final TransactionStatus status;
+
+    PaymentState(TransactionStatus status) {
+        this.status = status;
+    }
+
+    public TransactionStatus status() {
+        return status;
+    }
+
+    public boolean canTransitionTo(PaymentState next) {
+        return status.canTransitionTo(next.status);
+    }
+
+    // The saga has no further step of its own (a captured payment may still be refunded on request)
+    public boolean isTerminal() {
+        return this == CAPTURED || this == COMPENSATED || this == REFUNDED;
+    }
+
+    public static PaymentState fromStatus(TransactionStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Payment status is required");
+        }
+        return BY_STATUS[status.ordinal()];
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.paymentgateway.model;
+
+public class RefreshRequest {
+    private String refreshToken;
+
+    // Getters and setters
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+}
@@ -0,0 +1,17 @@
+package com.example.paymentgateway.model;
+
+// Self-service registration: only the fields a user may choose. Roles, ids and merchant/bank
+// linkage are never taken from the request; new accounts are plain customers.
+public class RegisterRequest {
+    private String username;
+    private String password;
+    private String email;
+
+    // Getters and setters
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+}
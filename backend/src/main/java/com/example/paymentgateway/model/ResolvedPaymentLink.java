@@ -0,0 +1,22 @@
+package com.example.paymentgateway.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+
+/**
+ * Public, immutable view of a payment link as served to payers (and held in the hot-link cache).
+ * Carries no owner details and no live use count.
+ */
+public record ResolvedPaymentLink(String code, BigDecimal amount, Currency currency, String description,
+                                  String merchantId, LocalDateTime expiresAt, boolean payable) {
+
+    public static ResolvedPaymentLink of(PaymentLink link, LocalDateTime now) {
+        return new ResolvedPaymentLink(link.getCode(), link.getAmount(), link.getCurrency(), link.getDescription(),
+                link.getMerchantId(), link.getExpiresAt(), link.isPayable(now));
+    }
+
+    public boolean isPayable(LocalDateTime now) {
+        return payable && (expiresAt == null || expiresAt.isAfter(now));
+    }
+}
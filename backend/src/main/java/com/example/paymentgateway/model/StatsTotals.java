@@ -0,0 +1,36 @@
+package com.example.paymentgateway.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Counter values for one dashboard scope, currency and time bucket. Amounts are minor units of that currency.
+ */
+public record StatsTotals(long count, long volumeMinor, long succeeded, long succeededMinor,
+                          long failed, long refunded, long refundedMinor) {
+    public static final StatsTotals EMPTY = new StatsTotals(0, 0, 0, 0, 0, 0, 0);
+
+    public StatsTotals plus(StatsTotals other) {
+        return new StatsTotals(count + other.count, volumeMinor + other.volumeMinor,
+                succeeded + other.succeeded, succeededMinor + other.succeededMinor,
+                failed + other.failed, refunded + other.refunded, refundedMinor + other.refundedMinor);
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return equals(EMPTY);
+    }
+
+    // Rates are over completed payments only; pending ones count towards neither
+    @JsonProperty("successRate")
+    public double successRate() {
+        long completed = succeeded + failed;
+        return completed == 0 ? 0.0 : (double) succeeded / completed;
+    }
+
+    @JsonProperty("failureRate")
+    public double failureRate() {
+        long completed = succeeded + failed;
+        return completed == 0 ? 0.0 : (double) failed / completed;
+    }
+}
@@ -1,36 +1,60 @@
 package com.example.paymentgateway.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Currency;
 
 @Entity
 @Table(name = "transactions", indexes = {
-    @Index(name = "idx_transaction_user", columnList = "user_id"),
-    @Index(name = "idx_transaction_merchant", columnList = "merchant_id"),
-    @Index(name = "idx_transaction_bank", columnList = "bank_id"),
+    // Keyset pagination indexes: tenant/user scope followed by the (timestamp, id) sort key
+    @Index(name = "idx_transaction_user_ts", columnList = "user_id, timestamp, id"),
+    @Index(name = "idx_transaction_merchant_ts", columnList = "merchant_id, timestamp, id"),
+    @Index(name = "idx_transaction_bank_ts", columnList = "bank_id, timestamp, id"),
     @Index(name = "idx_transaction_reference", columnList = "reference")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_transaction_user_reference", columnNames = {"user_id", "reference"})
 })
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
+    // Request/reporting view of the amount; amountMinor is authoritative once the transaction is created.
+    // The column stays for SQL reporting, stored exactly at the currency's own scale (up to 4 decimals).
     @NotNull
-    @DecimalMin("0.01")
-    @Column(nullable = false, precision = 18, scale = 2)
+    @DecimalMin("0.0001")
+    @Column(nullable = false, precision = 19, scale = 4)
     private BigDecimal amount;
 
+    @JsonIgnore
+    @Column(name = "amount_minor")
+    private Long amountMinor;
+
+    @Column(length = 3)
+    private Currency currency;
+
+    // One-character code (TransactionStatusConverter); set by the server, never by the request body
     @NotNull
-    @Column(nullable = false, length = 20)
-    private String status; // e.g., PENDING, SUCCESS, FAILED
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false, length = 1)
+    private TransactionStatus status;
+
+    // Concurrent status updates through the entity fail instead of overwriting each other
+    @JsonIgnore
+    @Version
+    private Long version;
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
 
+    @JsonIgnore // never serialize the owning user (lazy proxy, password hash)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -45,18 +69,39 @@ public class Transaction {
     @Column(length = 100)
     private String reference;
 
+    // Set when the transaction pays a payment link; the link's owner is the payee
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payment_link_id")
+    private PaymentLink paymentLink;
+
+    // When stuck-payment recovery last re-drove this payment (any node); null if it never had to
+    @JsonIgnore
+    @Column(name = "recovered_at")
+    private LocalDateTime recoveredAt;
 
     // Business logic methods
     public boolean isPending() {
-        return "PENDING".equalsIgnoreCase(status);
+        return status == TransactionStatus.PENDING;
     }
 
     public boolean isSuccessful() {
-        return "SUCCESS".equalsIgnoreCase(status);
+        return status == TransactionStatus.SUCCESS;
     }
 
     public boolean isFailed() {
-        return "FAILED".equalsIgnoreCase(status);
+        return status == TransactionStatus.FAILED;
+    }
+
+    @JsonIgnore
+    public Money getMoney() {
+        return amountMinor != null ? Money.ofMinor(amountMinor, currency) : Money.of(amount, currency);
+    }
+
+    public void setMoney(Money money) {
+        this.amountMinor = money.getMinorUnits();
+        this.currency = money.getCurrency();
+        this.amount = money.toDecimal();
     }
 
     public boolean isTenantMatch(String tenantId) {
@@ -65,16 +110,24 @@ public class Transaction {
         return false;
     }
 
+    // Applies a status change allowed by TransactionStatus's transition table; any status may be the first
+    public void transitionTo(TransactionStatus next) {
+        if (status != null && !status.canTransitionTo(next)) {
+            throw new IllegalStateException("Illegal transaction status change " + status + " -> " + next);
+        }
+        this.status = next;
+    }
+
     public void markSuccess() {
-        this.status = "SUCCESS";
+        transitionTo(TransactionStatus.SUCCESS);
     }
 
     public void markFailed() {
-        this.status = "FAILED";
+        transitionTo(TransactionStatus.FAILED);
     }
 
     public void markPending() {
-        this.status = "PENDING";
+        transitionTo(TransactionStatus.PENDING);
     }
 
     // Getters and setters
@@ -82,8 +135,12 @@ public class Transaction {
     public void setId(Long id) { this.id = id; }
     public BigDecimal getAmount() { return amount; }
     public void setAmount(BigDecimal amount) { this.amount = amount; }
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public Long getAmountMinor() { return amountMinor; }
+    public void setAmountMinor(Long amountMinor) { this.amountMinor = amountMinor; }
+    public Currency getCurrency() { return currency; }
+    public void setCurrency(Currency currency) { this.currency = currency; }
+    public TransactionStatus getStatus() { return status; }
+    public Long getVersion() { return version; }
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     public User getUser() { return user; }
@@ -94,4 +151,8 @@ public class Transaction {
     public void setBankId(String bankId) { this.bankId = bankId; }
     public String getReference() { return reference; }
     public void setReference(String reference) { this.reference = reference; }
+    public PaymentLink getPaymentLink() { return paymentLink; }
+    public void setPaymentLink(PaymentLink paymentLink) { this.paymentLink = paymentLink; }
+    public LocalDateTime getRecoveredAt() { return recoveredAt; }
+    public void setRecoveredAt(LocalDateTime recoveredAt) { this.recoveredAt = recoveredAt; }
 }
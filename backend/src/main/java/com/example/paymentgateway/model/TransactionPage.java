@@ -0,0 +1,16 @@
+package com.example.paymentgateway.model;
+
+import java.util.List;
+
+public class TransactionPage {
+    private final List<Transaction> items;
+    private final String nextCursor; // null on the last page
+
+    public TransactionPage(List<Transaction> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,83 @@
+package com.example.paymentgateway.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transaction.status, stored as a one-character code (see TransactionStatusConverter) and
+ * serialized by name. The transition table is the single source of truth for legal status
+ * changes; PaymentState and the entity's mutators both check against it.
+ * Codes are persisted, so they are never reassigned.
+ */
+public enum TransactionStatus {
+    PENDING('P'),
+    AUTHORIZED('A'),
+    SUCCESS('S'),
+    FAILED('F'),
+    COMPENSATED('C'),
+    REFUNDED('R'),
+    // Claimed by the compensation processor before it calls the acquirer (void / refund in flight)
+    COMPENSATING('V'),
+    REFUND_PENDING('D');
+
+    private static final Map<TransactionStatus, Set<TransactionStatus>> TRANSITIONS = new EnumMap<>(TransactionStatus.class);
+    private static final TransactionStatus[] BY_CODE = new TransactionStatus[128];
+
+    static {
+        // PENDING -> SUCCESS is a single-message sale (authorize and capture in one step)
+        TRANSITIONS.put(PENDING, EnumSet.of(AUTHORIZED, SUCCESS, FAILED));
+        TRANSITIONS.put(AUTHORIZED, EnumSet.of(SUCCESS, FAILED));
+        // Voids and refunds go through their claim state; a decline returns the row to where it was
+        TRANSITIONS.put(SUCCESS, EnumSet.of(REFUND_PENDING));
+        TRANSITIONS.put(REFUND_PENDING, EnumSet.of(REFUNDED, SUCCESS));
+        TRANSITIONS.put(FAILED, EnumSet.of(COMPENSATING));
+        TRANSITIONS.put(COMPENSATING, EnumSet.of(COMPENSATED, FAILED));
+        TRANSITIONS.put(COMPENSATED, EnumSet.noneOf(TransactionStatus.class));
+        TRANSITIONS.put(REFUNDED, EnumSet.noneOf(TransactionStatus.class));
+        for (TransactionStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
+
+    private final char code;
+
+    TransactionStatus(char code) {
+        this.code = code;
+    }
+
+    public char code() {
+        return code;
+    }
+
+    public boolean canTransitionTo(TransactionStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+
+    // No further status change is possible
+    public boolean isFinal() {
+        return TRANSITIONS.get(this).isEmpty();
+    }
+
+    public static TransactionStatus fromCode(char code) {
+        TransactionStatus status = code < BY_CODE.length ? BY_CODE[code] : null;
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown transaction status code " + code);
+        }
+        return status;
+    }
+
+    // Case-insensitive name, as accepted from query parameters and request bodies
+    @JsonCreator
+    public static TransactionStatus parse(String name) {
+        for (TransactionStatus status : values()) {
+            if (status.name().equalsIgnoreCase(name)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown transaction status " + name);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.paymentgateway.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a TransactionStatus as its one-character code.
+ */
+@Converter(autoApply = true)
+public class TransactionStatusConverter implements AttributeConverter<TransactionStatus, Character> {
+
+    @Override
+    public Character convertToDatabaseColumn(TransactionStatus status) {
+        return status != null ? status.code() : null;
+    }
+
+    @Override
+    public TransactionStatus convertToEntityAttribute(Character code) {
+        return code != null ? TransactionStatus.fromCode(code) : null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.paymentgateway.repository;
+
+import com.example.paymentgateway.model.DashboardStatsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface DashboardStatsRollupRepository extends JpaRepository<DashboardStatsRollup, DashboardStatsRollup.Key> {
+    // Total plus the hour/day buckets still inside the dashboard window: a primary-key range scan
+    // bounded by the window size, independent of how much history the scope has
+    @Query("SELECT r FROM DashboardStatsRollup r WHERE r.scope = :scope AND (r.granularity = 'TOTAL'"
+            + " OR (r.granularity = 'HOUR' AND r.bucketStart >= :hourFrom)"
+            + " OR (r.granularity = 'DAY' AND r.bucketStart >= :dayFrom))")
+    List<DashboardStatsRollup> findWindow(@Param("scope") String scope, @Param("hourFrom") long hourFrom,
+                                          @Param("dayFrom") long dayFrom);
+
+    // Adds a checkpoint delta; concurrent checkpoints from several nodes accumulate instead of overwriting
+    @Modifying
+    @Query(value = "INSERT INTO dashboard_stats_rollups (scope, currency, granularity, bucket_start, tx_count,"
+            + " volume_minor, succeeded, succeeded_minor, failed, refunded, refunded_minor)"
+            + " VALUES (:scope, :currency, :granularity, :bucketStart, :count, :volumeMinor, :succeeded,"
+            + " :succeededMinor, :failed, :refunded, :refundedMinor)"
+            + " ON CONFLICT (scope, currency, granularity, bucket_start) DO UPDATE SET"
+            + " tx_count = dashboard_stats_rollups.tx_count + EXCLUDED.tx_count,"
+            + " volume_minor = dashboard_stats_rollups.volume_minor + EXCLUDED.volume_minor,"
+            + " succeeded = dashboard_stats_rollups.succeeded + EXCLUDED.succeeded,"
+            + " succeeded_minor = dashboard_stats_rollups.succeeded_minor + EXCLUDED.succeeded_minor,"
+            + " failed = dashboard_stats_rollups.failed + EXCLUDED.failed,"
+            + " refunded = dashboard_stats_rollups.refunded + EXCLUDED.refunded,"
+            + " refunded_minor = dashboard_stats_rollups.refunded_minor + EXCLUDED.refunded_minor",
+            nativeQuery = true)
+    int addDelta(@Param("scope") String scope, @Param("currency") String currency,
+                 @Param("granularity") String granularity, @Param("bucketStart") long bucketStart,
+                 @Param("count") long count, @Param("volumeMinor") long volumeMinor, @Param("succeeded") long succeeded,
+                 @Param("succeededMinor") long succeededMinor, @Param("failed") long failed,
+                 @Param("refunded") long refunded, @Param("refundedMinor") long refundedMinor);
+
+    @Modifying
+    @Query("DELETE FROM DashboardStatsRollup r WHERE r.granularity = :granularity AND r.bucketStart < :cutoff")
+    int deleteBucketsBefore(@Param("granularity") String granularity, @Param("cutoff") long cutoff);
+}
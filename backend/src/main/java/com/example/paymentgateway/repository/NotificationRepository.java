@@ -1,9 +1,13 @@
 package com.example.paymentgateway.repository;
 
 import com.example.paymentgateway.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUsername(String username);
+
+    // Stream resume: one page of the notifications the client missed after its Last-Event-ID
+    List<Notification> findByUsernameAndStreamSeqGreaterThanOrderByStreamSeqAsc(String username, Long streamSeq, Pageable page);
 }
@@ -0,0 +1,44 @@
+package com.example.paymentgateway.repository;
+
+import com.example.paymentgateway.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Oldest pending event of each (topic, key), in insertion order, that no relay holds a live
+     * claim on. Only the head of a key is eligible, so a relay never publishes an event while an
+     * earlier one of the same key is still pending (claimed or not); SKIP LOCKED then lets relays
+     * on several nodes drain disjoint keys.
+     */
+    @Query(value = "SELECT * FROM outbox_events o WHERE o.published_at IS NULL"
+            + " AND (o.claimed_until IS NULL OR o.claimed_until < :now)"
+            + " AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.published_at IS NULL"
+            + " AND p.topic = o.topic AND p.event_key = o.event_key AND p.relay_seq < o.relay_seq)"
+            + " ORDER BY o.relay_seq LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockPendingBatch(@Param("limit") int limit, @Param("now") LocalDateTime now);
+
+    // Lease taken before sending, so the send and ack wait need no row lock
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = :until WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = NULL WHERE e.id IN :ids")
+    int releaseClaims(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
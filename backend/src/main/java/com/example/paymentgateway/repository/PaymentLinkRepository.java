@@ -0,0 +1,24 @@
+package com.example.paymentgateway.repository;
+
+import com.example.paymentgateway.model.PaymentLink;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentLinkRepository extends JpaRepository<PaymentLink, Long> {
+    Optional<PaymentLink> findByCode(String code);
+
+    List<PaymentLink> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    // Atomic redemption: expiry, activity and the usage limit are checked in the same statement
+    // that takes the use, so concurrent payers on any node can never exceed max_uses
+    @Modifying
+    @Query("UPDATE PaymentLink l SET l.useCount = l.useCount + 1 WHERE l.code = :code AND l.active = true"
+            + " AND (l.expiresAt IS NULL OR l.expiresAt > :now) AND (l.maxUses IS NULL OR l.useCount < l.maxUses)")
+    int redeem(@Param("code") String code, @Param("now") LocalDateTime now);
+}
@@ -2,11 +2,17 @@ package com.example.paymentgateway.repository;
 
 import com.example.paymentgateway.model.PaymentMethod;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface PaymentMethodRepository extends JpaRepository<PaymentMethod, Long> {
     List<PaymentMethod> findByUserId(Long userId);
 
+    // Checkout view, served by the partial index idx_payment_method_usable
+    @Query("SELECT pm FROM PaymentMethod pm WHERE pm.user.id = :userId AND pm.active = true AND pm.verified = true")
+    List<PaymentMethod> findUsableByUserId(@Param("userId") Long userId);
+
     // Multi-tenant queries
     List<PaymentMethod> findByMerchantId(String merchantId);
     List<PaymentMethod> findByBankId(String bankId);
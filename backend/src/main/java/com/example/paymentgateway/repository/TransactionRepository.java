@@ -1,15 +1,67 @@
 package com.example.paymentgateway.repository;
 
 import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionSearchRepository {
     List<Transaction> findByUserId(Long userId);
 
+    // Idempotency lookup, served by the unique (user_id, reference) constraint
+    Optional<Transaction> findByUserIdAndReference(Long userId, String reference);
+
     // Multi-tenant queries
     List<Transaction> findByMerchantId(String merchantId);
     List<Transaction> findByBankId(String bankId);
     List<Transaction> findByUserIdAndMerchantId(Long userId, String merchantId);
     List<Transaction> findByUserIdAndBankId(Long userId, String bankId);
+
+    // Owner and status of one payment, for status polling without loading the entity
+    @Query("SELECT t.user.id AS userId, t.status AS status FROM Transaction t WHERE t.id = :id")
+    Optional<StatusView> findStatusById(@Param("id") Long id);
+
+    interface StatusView {
+        Long getUserId();
+        TransactionStatus getStatus();
+    }
+
+    // Compare-and-set status change; returns 0 when the row was not in the expected status.
+    // VERSIONED bumps @Version, so a concurrent entity update of the same row fails rather than reverting it
+    @Modifying
+    @Query("UPDATE VERSIONED Transaction t SET t.status = :to WHERE t.id = :id AND t.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") TransactionStatus from, @Param("to") TransactionStatus to);
+
+    @Query("SELECT t.id FROM Transaction t WHERE t.id IN :ids AND t.status = :status")
+    List<Long> findIdsInStatus(@Param("ids") Collection<Long> ids, @Param("status") TransactionStatus status);
+
+    // Row-locks the ids still in the given status (its code, see TransactionStatus) so a batched
+    // transition knows exactly which rows it moves
+    @Query(value = "SELECT id FROM transactions WHERE id IN (:ids) AND status = :status FOR UPDATE", nativeQuery = true)
+    List<Long> lockIdsInStatus(@Param("ids") Collection<Long> ids, @Param("status") String statusCode);
+
+    // Batched form of transitionStatus: one UPDATE for many rows
+    @Modifying
+    @Query("UPDATE VERSIONED Transaction t SET t.status = :to WHERE t.id IN :ids AND t.status = :from")
+    int transitionStatuses(@Param("ids") Collection<Long> ids, @Param("from") TransactionStatus from,
+                           @Param("to") TransactionStatus to);
+
+    // Row-locks the oldest payments stuck in a status (its code) since before the cutoff and not re-driven
+    // since retryBefore; SKIP LOCKED lets every node run recovery without two of them taking the same row.
+    // Served by idx_transaction_in_flight
+    @Query(value = "SELECT id FROM transactions WHERE status = :status AND timestamp < :before"
+            + " AND (recovered_at IS NULL OR recovered_at < :retryBefore)"
+            + " ORDER BY timestamp LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> claimStuckIds(@Param("status") String statusCode, @Param("before") LocalDateTime before,
+                             @Param("retryBefore") LocalDateTime retryBefore, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Transaction t SET t.recoveredAt = :at WHERE t.id IN :ids")
+    int markRecovered(@Param("ids") Collection<Long> ids, @Param("at") LocalDateTime at);
 }
@@ -0,0 +1,16 @@
+package com.example.paymentgateway.repository;
+
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionCursor;
+import com.example.paymentgateway.model.TransactionFilter;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+// Keyset-paginated and cursor-streamed history queries, ordered by (timestamp DESC, id DESC)
+public interface TransactionSearchRepository {
+    List<Transaction> findPage(TransactionFilter filter, TransactionCursor after, int limit);
+
+    // Rows come off a server-side JDBC cursor and are detached as they are read; call inside a transaction
+    Stream<Transaction> streamAll(TransactionFilter filter, int fetchSize);
+}
@@ -0,0 +1,96 @@
+package com.example.paymentgateway.repository;
+
+import com.example.paymentgateway.model.Money;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionCursor;
+import com.example.paymentgateway.model.TransactionFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class TransactionSearchRepositoryImpl implements TransactionSearchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Transaction> findPage(TransactionFilter filter, TransactionCursor after, int limit) {
+        return entityManager.createQuery(buildQuery(filter, after))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<Transaction> streamAll(TransactionFilter filter, int fetchSize) {
+        return entityManager.createQuery(buildQuery(filter, null))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .peek(entityManager::detach); // keep the persistence context from growing with the result
+    }
+
+    private CriteriaQuery<Transaction> buildQuery(TransactionFilter filter, TransactionCursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> query = cb.createQuery(Transaction.class);
+        Root<Transaction> t = query.from(Transaction.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getUserId() != null) {
+            predicates.add(cb.equal(t.get("user").get("id"), filter.getUserId()));
+        }
+        if (filter.getMerchantId() != null) {
+            predicates.add(cb.equal(t.get("merchantId"), filter.getMerchantId()));
+        }
+        if (filter.getBankId() != null) {
+            predicates.add(cb.equal(t.get("bankId"), filter.getBankId()));
+        }
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(t.get("status"), filter.getStatus()));
+        }
+        if (filter.getCurrency() != null) {
+            predicates.add(cb.equal(t.get("currency"), filter.getCurrency()));
+        }
+        // Bounds are compared exactly in the currency's minor units, rounded inwards
+        if (filter.getMinAmount() != null) {
+            long min = minorUnits(filter.getMinAmount(), filter.getCurrency(), RoundingMode.CEILING);
+            predicates.add(cb.greaterThanOrEqualTo(t.get("amountMinor"), min));
+        }
+        if (filter.getMaxAmount() != null) {
+            long max = minorUnits(filter.getMaxAmount(), filter.getCurrency(), RoundingMode.FLOOR);
+            predicates.add(cb.lessThanOrEqualTo(t.get("amountMinor"), max));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(t.get("timestamp"), filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(t.get("timestamp"), filter.getTo()));
+        }
+        if (after != null) {
+            // Seek past the cursor: (timestamp, id) < (cursor.timestamp, cursor.id)
+            predicates.add(cb.or(
+                    cb.lessThan(t.get("timestamp"), after.getTimestamp()),
+                    cb.and(cb.equal(t.get("timestamp"), after.getTimestamp()),
+                            cb.lessThan(t.get("id"), after.getId()))));
+        }
+        return query.select(t)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(t.get("timestamp")), cb.desc(t.get("id")));
+    }
+
+    private static long minorUnits(BigDecimal amount, Currency currency, RoundingMode rounding) {
+        if (currency == null) {
+            throw new IllegalArgumentException("An amount filter needs a currency");
+        }
+        return Money.of(amount, currency, rounding).getMinorUnits();
+    }
+}
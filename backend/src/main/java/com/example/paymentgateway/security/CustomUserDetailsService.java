@@ -2,10 +2,12 @@ package com.example.paymentgateway.security;
 
 import com.example.paymentgateway.model.User;
 import com.example.paymentgateway.repository.UserRepository;
+import com.example.paymentgateway.service.UserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -14,21 +16,43 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private UserCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        User user = userCache.get(username, userRepository::findByUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return toUserDetails(user);
+    }
+
+    // Cheap enabled check for principals rebuilt from token claims; served from the user cache
+    public boolean isEnabled(String username) {
+        return userCache.get(username, userRepository::findByUsername)
+                .map(User::isEnabled)
+                .orElse(false);
+    }
+
+    // Called by the authentication provider after a successful login whose stored hash needs upgrading
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        userCache.evict(user.getUsername());
+        // Keep the richer principal: the login flow issues its token straight from it
+        return toUserDetails(user);
+    }
+
+    private static GatewayUserDetails toUserDetails(User user) {
         Set<GrantedAuthority> authorities = user.getRoles().stream()
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toSet());
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                authorities
-        );
+        return new GatewayUserDetails(user.getId(), user.getUsername(), user.getPassword(), user.isEnabled(),
+                authorities, user.getMerchantId(), user.getBankId());
     }
 }
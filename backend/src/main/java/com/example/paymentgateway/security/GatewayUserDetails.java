@@ -0,0 +1,31 @@
+package com.example.paymentgateway.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Authenticated principal carrying the user id and tenant ids alongside the authorities,
+ * so tokens can be issued (and later rebuilt from their claims) without another user lookup.
+ */
+public class GatewayUserDetails extends User {
+    private static final long serialVersionUID = 1L;
+
+    private final Long userId;
+    private final String merchantId;
+    private final String bankId;
+
+    public GatewayUserDetails(Long userId, String username, String password, boolean enabled,
+                              Collection<? extends GrantedAuthority> authorities,
+                              String merchantId, String bankId) {
+        super(username, password == null ? "" : password, enabled, true, true, true, authorities);
+        this.userId = userId;
+        this.merchantId = merchantId;
+        this.bankId = bankId;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getMerchantId() { return merchantId; }
+    public String getBankId() { return bankId; }
+}
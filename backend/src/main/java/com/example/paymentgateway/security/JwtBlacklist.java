@@ -1,19 +1,92 @@
 package com.example.paymentgateway.security;
 
+import com.example.paymentgateway.util.BloomFilter;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PostConstruct;
+import java.util.Date;
 
+/**
+ * Revoked-token check. Tokens are stored as fixed-width digests in a RevocationStore and only
+ * until their own exp; after that the signature check rejects them anyway. An optional Bloom
+ * filter in front answers "never revoked" without touching the store. It is only used with a
+ * node-local store: with a shared one, a token revoked on another node would be missing from this
+ * node's filter until the next sweep, so every check goes to the store.
+ */
 @Component
 public class JwtBlacklist {
-    private final Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
+    @Autowired
+    private RevocationStore revocationStore;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${jwt.revocation.bloom.enabled:true}")
+    private boolean bloomEnabled;
+
+    @Value("${jwt.revocation.bloom.expected-insertions:100000}")
+    private long bloomExpectedInsertions;
+
+    @Value("${jwt.revocation.bloom.false-positive-rate:0.001}")
+    private double bloomFalsePositiveRate;
+
+    private volatile BloomFilter bloomFilter;
+    private final Object bloomLock = new Object();
+
+    @PostConstruct
+    void init() {
+        bloomEnabled = bloomEnabled && !revocationStore.isShared();
+        if (bloomEnabled) {
+            rebuildBloomFilter();
+        }
+    }
 
     public void blacklist(String token) {
-        blacklistedTokens.add(token);
+        Date expiration;
+        try {
+            expiration = jwtUtil.extractExpiration(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return; // expired or invalid tokens are already rejected by signature/exp validation
+        }
+        TokenDigest digest = TokenDigest.of(token);
+        synchronized (bloomLock) {
+            revocationStore.revoke(digest, expiration.getTime());
+            if (bloomFilter != null) {
+                bloomFilter.put(digest.high());
+            }
+        }
     }
 
     public boolean isBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        return isBlacklisted(TokenDigest.of(token));
+    }
+
+    public boolean isBlacklisted(TokenDigest digest) {
+        BloomFilter filter = bloomFilter;
+        if (filter != null && !filter.mightContain(digest.high())) {
+            return false;
+        }
+        return revocationStore.isRevoked(digest);
+    }
+
+    // Drops expired revocations and rebuilds the Bloom filter so it does not fill up over time
+    @Scheduled(fixedDelayString = "${jwt.revocation.sweep-interval-ms:60000}")
+    public void sweep() {
+        revocationStore.purgeExpired(System.currentTimeMillis());
+        if (bloomEnabled) {
+            rebuildBloomFilter();
+        }
+    }
+
+    private void rebuildBloomFilter() {
+        synchronized (bloomLock) {
+            BloomFilter rebuilt = new BloomFilter(bloomExpectedInsertions, bloomFalsePositiveRate);
+            revocationStore.forEach(digest -> rebuilt.put(digest.high()));
+            bloomFilter = rebuilt;
+        }
     }
 }
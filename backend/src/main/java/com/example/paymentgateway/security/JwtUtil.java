@@ -4,20 +4,30 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
+    private static final String ROLES_CLAIM = "roles";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String MERCHANT_ID_CLAIM = "merchantId";
+    private static final String BANK_ID_CLAIM = "bankId";
+    private static final String SESSION_ID_CLAIM = "sid";
+
     @Value("${jwt.secret:secret-key}")
     private String secret;
 
-    @Value("${jwt.expiration:86400000}") // 1 day
+    @Value("${jwt.expiration:900000}") // 15 minutes; sessions are extended with refresh tokens
     private long jwtExpirationInMs;
 
     public String extractUsername(String token) {
@@ -37,16 +47,58 @@ public class JwtUtil {
         return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
     }
 
+    // Single parse + signature check returning every claim; rejects expired tokens with ExpiredJwtException
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
     private Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
 
-    public String generateToken(UserDetails userDetails) {
+    /**
+     * Issues an access token carrying everything the request filters need (roles, user id,
+     * tenant ids) so they can rebuild the principal without a user lookup.
+     * The session id ties the token to its refresh token family for logout.
+     */
+    public String generateAccessToken(GatewayUserDetails userDetails, String sessionId) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities());
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        claims.put(USER_ID_CLAIM, userDetails.getUserId());
+        if (userDetails.getMerchantId() != null) {
+            claims.put(MERCHANT_ID_CLAIM, userDetails.getMerchantId());
+        }
+        if (userDetails.getBankId() != null) {
+            claims.put(BANK_ID_CLAIM, userDetails.getBankId());
+        }
+        if (sessionId != null) {
+            claims.put(SESSION_ID_CLAIM, sessionId);
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
+    // Rebuilds the principal from verified claims; null for tokens issued before roles were plain strings
+    public GatewayUserDetails principalFrom(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        if (!(roles instanceof List<?> roleList) || userId == null || claims.getSubject() == null) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(roleList.size());
+        for (Object role : roleList) {
+            if (!(role instanceof String name)) {
+                return null;
+            }
+            authorities.add(new SimpleGrantedAuthority(name));
+        }
+        return new GatewayUserDetails(userId.longValue(), claims.getSubject(), null, true, authorities,
+                claims.get(MERCHANT_ID_CLAIM, String.class), claims.get(BANK_ID_CLAIM, String.class));
+    }
+
+    public String sessionId(Claims claims) {
+        return claims.get(SESSION_ID_CLAIM, String.class);
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -61,4 +113,12 @@ public class JwtUtil {
         final String username = extractUsername(token);
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
+
+    // Same check as validateToken but against claims that were already parsed and verified
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return claims.getSubject() != null
+                && claims.getSubject().equals(userDetails.getUsername())
+                && claims.getExpiration() != null
+                && claims.getExpiration().after(new Date());
+    }
 }
@@ -0,0 +1,57 @@
+package com.example.paymentgateway.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory revocation store. Entries are grouped into one-minute buckets by token expiry,
+ * so purging only walks the buckets that have fully expired instead of the whole store.
+ */
+@Component
+public class LocalRevocationStore implements RevocationStore {
+    private static final long BUCKET_MILLIS = 60_000;
+
+    private final Map<TokenDigest, Long> revoked = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Set<TokenDigest>> expiryBuckets = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void revoke(TokenDigest digest, long expiresAtMillis) {
+        revoked.put(digest, expiresAtMillis);
+        expiryBuckets.computeIfAbsent(expiresAtMillis / BUCKET_MILLIS, b -> ConcurrentHashMap.newKeySet()).add(digest);
+    }
+
+    @Override
+    public boolean isRevoked(TokenDigest digest) {
+        Long expiresAt = revoked.get(digest);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @Override
+    public void purgeExpired(long nowMillis) {
+        // A bucket is only dropped once every token in it has expired
+        Iterator<Map.Entry<Long, Set<TokenDigest>>> it =
+                expiryBuckets.headMap(nowMillis / BUCKET_MILLIS).entrySet().iterator();
+        while (it.hasNext()) {
+            Set<TokenDigest> bucket = it.next().getValue();
+            it.remove();
+            for (TokenDigest digest : bucket) {
+                revoked.remove(digest);
+            }
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<TokenDigest> action) {
+        revoked.keySet().forEach(action);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+}
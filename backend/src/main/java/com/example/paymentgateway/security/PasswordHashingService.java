@@ -0,0 +1,77 @@
+package com.example.paymentgateway.security;
+
+import com.example.paymentgateway.util.LogUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and credential verification on a small dedicated pool, so a login burst
+ * is limited to a few cores and never occupies the servlet threads that serve payment traffic.
+ * The queue is bounded; when it is full, work is rejected (503) instead of waiting.
+ */
+@Service
+public class PasswordHashingService {
+    private static final Logger log = LogUtil.getLogger(PasswordHashingService.class);
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.password.hashing.threads:0}") // 0 = half the available cores
+    private int threads;
+    @Value("${security.password.hashing.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hashing-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("password.hashing.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+
+        // Cost calibration: the configured encoder's hash time is what every login pays
+        long start = System.nanoTime();
+        passwordEncoder.encode("calibration");
+        log.info("Password hashing: {} threads, {} ms per hash at the configured cost",
+                poolSize, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    // Runs credential work (e.g. an AuthenticationManager call) on the hashing pool, timed under the given operation
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> work) {
+        Timer timer = Timer.builder("password.hashing").tag("operation", operation).register(meterRegistry);
+        return CompletableFuture.supplyAsync(() -> timer.record(work), executor);
+    }
+}
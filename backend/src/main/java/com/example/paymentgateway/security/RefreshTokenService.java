@@ -0,0 +1,132 @@
+package com.example.paymentgateway.security;
+
+import com.example.paymentgateway.model.RefreshToken;
+import com.example.paymentgateway.repository.RefreshTokenRepository;
+import com.example.paymentgateway.util.LogUtil;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens. Each exchange marks the presented token used and issues
+ * the next one in the same family; presenting a used token again is treated as theft and
+ * revokes the whole family.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LogUtil.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${jwt.refresh.expiration-ms:1209600000}") // 14 days
+    private long refreshExpirationMs;
+
+    private final SecureRandom random = new SecureRandom();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Rotation(String username, String familyId, String refreshToken) {
+    }
+
+    /**
+     * Starts a new family (one per login) and returns its first token.
+     */
+    public Rotation issue(String username) {
+        String familyId = UUID.randomUUID().toString();
+        String token = transactionTemplate.execute(status -> store(username, familyId, LocalDateTime.now()));
+        return new Rotation(username, familyId, token);
+    }
+
+    /**
+     * Exchanges a refresh token for the next one in its family.
+     * Reuse detection must survive the rejection, so the family is revoked in a committed
+     * transaction before the IllegalArgumentException is thrown.
+     */
+    public Rotation rotate(String presented) {
+        if (presented == null || presented.isBlank()) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        Rotation rotation = transactionTemplate.execute(status -> exchange(presented));
+        if (rotation == null) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        return rotation;
+    }
+
+    public void revokeFamily(String familyId) {
+        transactionTemplate.executeWithoutResult(status -> refreshTokenRepository.revokeFamily(familyId));
+    }
+
+    public void revokeUser(String username) {
+        transactionTemplate.executeWithoutResult(status -> refreshTokenRepository.revokeAllForUser(username));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        transactionTemplate.executeWithoutResult(status ->
+                refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now()));
+    }
+
+    private Rotation exchange(String presented) {
+        RefreshToken token = refreshTokenRepository.lockByTokenHash(hash(presented)).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        if (token == null || token.isRevoked() || token.isExpired(now)) {
+            return null;
+        }
+        if (token.isUsed()) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            logger.warn("Refresh token reuse detected for user {}; revoked session family {}",
+                    token.getUsername(), token.getFamilyId());
+            return null;
+        }
+        token.setUsedAt(now);
+        refreshTokenRepository.save(token);
+        String next = store(token.getUsername(), token.getFamilyId(), now);
+        return new Rotation(token.getUsername(), token.getFamilyId(), next);
+    }
+
+    private String store(String username, String familyId, LocalDateTime now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(value));
+        token.setUsername(username);
+        token.setFamilyId(familyId);
+        token.setExpiresAt(now.plus(Duration.ofMillis(refreshExpirationMs)));
+        refreshTokenRepository.save(token);
+        return value;
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
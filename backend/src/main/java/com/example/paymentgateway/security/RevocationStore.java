@@ -0,0 +1,26 @@
+package com.example.paymentgateway.security;
+
+import java.util.function.Consumer;
+
+/**
+ * Backend holding revoked token digests until the token's own expiry.
+ * LocalRevocationStore keeps them in memory; a shared implementation (e.g. backed by Redis)
+ * can be registered as a @Primary bean (returning true from isShared) so that every gateway node
+ * sees the same revocations.
+ */
+public interface RevocationStore {
+    void revoke(TokenDigest digest, long expiresAtMillis);
+
+    boolean isRevoked(TokenDigest digest);
+
+    // Drops every entry whose token has expired by nowMillis
+    void purgeExpired(long nowMillis);
+
+    // Visits every live entry; used to rebuild local filters in front of the store
+    void forEach(Consumer<TokenDigest> action);
+
+    // True when other nodes revoke into this store too, so a filter built on this node can miss entries
+    default boolean isShared() {
+        return false;
+    }
+}
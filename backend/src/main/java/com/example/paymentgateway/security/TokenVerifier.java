@@ -0,0 +1,99 @@
+package com.example.paymentgateway.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves a request's bearer token to its verified principal at most once per request.
+ * RateLimitingFilter (which runs first) and JwtAuthenticationFilter share the result through
+ * a request attribute; across requests it comes from VerifiedTokenCache.
+ */
+@Component
+public class TokenVerifier {
+    private static final String PRINCIPAL_ATTRIBUTE = TokenVerifier.class.getName() + ".principal";
+
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private JwtBlacklist jwtBlacklist;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Verification latency split by path: cache hit vs. full verification (parse + claims)
+    private Timer cacheHitTimer;
+    private Timer cacheMissTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        cacheHitTimer = Timer.builder("jwt.authentication").tag("cache", "hit").register(meterRegistry);
+        cacheMissTimer = Timer.builder("jwt.authentication").tag("cache", "miss").register(meterRegistry);
+    }
+
+    public static String bearerToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        return authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+    }
+
+    // Null without a bearer token, or for an invalid, expired, revoked or disabled user's token
+    @SuppressWarnings("unchecked")
+    public UserDetails verifiedPrincipal(HttpServletRequest request) {
+        Object resolved = request.getAttribute(PRINCIPAL_ATTRIBUTE);
+        if (resolved == null) {
+            String jwt = bearerToken(request);
+            resolved = Optional.ofNullable(jwt != null ? resolve(jwt) : null);
+            request.setAttribute(PRINCIPAL_ATTRIBUTE, resolved);
+        }
+        return ((Optional<UserDetails>) resolved).orElse(null);
+    }
+
+    private UserDetails resolve(String jwt) {
+        long start = System.nanoTime();
+        TokenDigest digest = TokenDigest.of(jwt);
+        UserDetails userDetails = verifiedTokenCache.get(digest);
+        Timer timer = cacheHitTimer;
+        if (userDetails == null) {
+            timer = cacheMissTimer;
+            // Logout drops the cache entry; never verify (and so re-cache) a revoked token
+            userDetails = jwtBlacklist.isBlacklisted(digest) ? null : verify(jwt, digest);
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return userDetails;
+    }
+
+    // Full path: one parse/signature check, principal rebuilt from the claims (only the cached
+    // enabled flag is consulted), then cache until the token expires
+    private UserDetails verify(String jwt, TokenDigest digest) {
+        try {
+            Claims claims = jwtUtil.parseClaims(jwt);
+            UserDetails userDetails = jwtUtil.principalFrom(claims);
+            if (userDetails == null) {
+                // Token issued without the full claim set: resolve the principal the old way
+                userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            } else if (!userDetailsService.isEnabled(userDetails.getUsername())) {
+                return null;
+            }
+            if (!userDetails.isEnabled() || !jwtUtil.validateClaims(claims, userDetails)) {
+                return null;
+            }
+            verifiedTokenCache.put(digest, userDetails, claims.getExpiration());
+            return userDetails;
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            return null; // invalid, expired or orphaned token: request continues unauthenticated
+        }
+    }
+}
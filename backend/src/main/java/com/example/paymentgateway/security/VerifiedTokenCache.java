@@ -0,0 +1,51 @@
+package com.example.paymentgateway.security;
+
+import com.example.paymentgateway.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Date;
+
+/**
+ * Maps already-verified JWTs to their resolved principal so repeat requests skip
+ * signature verification and the user/roles query. Keyed by TokenDigest, so no bearer
+ * token is held in memory. Entries never outlive the token's exp.
+ */
+@Component
+public class VerifiedTokenCache {
+    @Value("${jwt.cache.max-size:50000}")
+    private int maxSize;
+
+    @Value("${jwt.cache.ttl-ms:300000}") // 5 minutes
+    private long ttlMs;
+
+    private ExpiringCache<TokenDigest, UserDetails> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new ExpiringCache<>(maxSize, ttlMs);
+    }
+
+    public UserDetails get(TokenDigest token) {
+        return cache.get(token);
+    }
+
+    public void put(TokenDigest token, UserDetails userDetails, Date expiration) {
+        if (userDetails instanceof CredentialsContainer credentials) {
+            credentials.eraseCredentials(); // never keep password hashes in the cache
+        }
+        cache.put(token, userDetails, expiration.getTime() - System.currentTimeMillis());
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(TokenDigest.of(token));
+    }
+
+    // Drops every cached token of a user, e.g. when the account is disabled
+    public void invalidateUser(String username) {
+        cache.invalidateIf((token, userDetails) -> userDetails.getUsername().equals(username));
+    }
+}
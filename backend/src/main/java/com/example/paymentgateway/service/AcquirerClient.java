@@ -0,0 +1,19 @@
+package com.example.paymentgateway.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking acquirer (card network / bank) API used by the payment saga.
+ * Each call completes with true when the acquirer approved the step.
+ * Every call carries an idempotency key: repeating a call with the same key returns the
+ * original outcome instead of moving money again, so a retried or resumed request is safe.
+ */
+public interface AcquirerClient {
+    CompletableFuture<Boolean> authorize(long transactionId, long amountMinor, String idempotencyKey);
+
+    CompletableFuture<Boolean> capture(long transactionId, long amountMinor, String idempotencyKey);
+
+    CompletableFuture<Boolean> voidAuthorization(long transactionId, long amountMinor, String idempotencyKey);
+
+    CompletableFuture<Boolean> refund(long transactionId, long amountMinor, String idempotencyKey);
+}
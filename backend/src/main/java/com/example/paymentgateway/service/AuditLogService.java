@@ -1,7 +1,6 @@
 package com.example.paymentgateway.service;
 
 import com.example.paymentgateway.model.AuditLog;
-import com.example.paymentgateway.repository.AuditLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -10,13 +9,14 @@ import java.time.LocalDateTime;
 @Service
 public class AuditLogService {
     @Autowired
-    private AuditLogRepository auditLogRepository;
+    private AuditLogWriter auditLogWriter;
 
+    // Enqueues the entry; AuditLogWriter persists it in the next batch, off the caller's thread
     public void logAction(String username, String action) {
         AuditLog log = new AuditLog();
         log.setUsername(username);
         log.setAction(action);
         log.setTimestamp(LocalDateTime.now());
-        auditLogRepository.save(log);
+        auditLogWriter.submit(log);
     }
 }
@@ -0,0 +1,296 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.AuditLog;
+import com.example.paymentgateway.repository.AuditLogRepository;
+import com.example.paymentgateway.util.BoundedRingBuffer;
+import com.example.paymentgateway.util.LogUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background writer behind AuditLogService. Callers enqueue into a lock-free ring buffer;
+ * a single drainer thread flushes batches (by size or age) in one transaction so Hibernate
+ * can group the INSERTs. When the buffer is full the configured overflow policy applies,
+ * and batches the database rejects are spilled to disk and replayed once it recovers.
+ * Spilled entries go through a buffered stream kept open between spills; the drainer flushes
+ * it on each pass and it is closed before a replay and on shutdown.
+ */
+@Component
+public class AuditLogWriter {
+    public enum OverflowPolicy { DROP, BLOCK, CALLER_RUNS, SPILL }
+
+    private static final Logger log = LogUtil.getLogger(AuditLogWriter.class);
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${audit.queue.capacity:8192}")
+    private int queueCapacity;
+    @Value("${audit.batch.size:500}")
+    private int batchSize;
+    @Value("${audit.flush.interval-ms:200}")
+    private long flushIntervalMs;
+    @Value("${audit.overflow-policy:SPILL}")
+    private OverflowPolicy overflowPolicy;
+    @Value("${audit.block.timeout-ms:50}")
+    private long blockTimeoutMs;
+    @Value("${audit.spill.path:${app.data-dir:./data}/audit.spill}")
+    private String spillPath;
+
+    private BoundedRingBuffer<AuditLog> buffer;
+    private TransactionTemplate transactionTemplate;
+    private Thread drainer;
+    private volatile boolean running;
+    private Path spillFile;
+    private final Object spillLock = new Object();
+    private DataOutputStream spillOut; // guarded by spillLock, open while entries are being spilled
+    private volatile boolean spillPending;
+
+    private Timer flushTimer;
+    private Counter droppedCounter;
+    private Counter spilledCounter;
+
+    @PostConstruct
+    void start() {
+        buffer = new BoundedRingBuffer<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // CALLER_RUNS flushes on the submitting thread: never join (or roll back with) its transaction
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        spillFile = Paths.get(spillPath).toAbsolutePath();
+        try {
+            Files.createDirectories(spillFile.getParent());
+        } catch (IOException e) {
+            throw new IllegalStateException("Audit spill directory not usable: " + spillFile.getParent(), e);
+        }
+        spillPending = Files.exists(spillFile); // left over from a previous run
+        Gauge.builder("audit.queue.depth", buffer, BoundedRingBuffer::size).register(meterRegistry);
+        flushTimer = Timer.builder("audit.flush").register(meterRegistry);
+        droppedCounter = Counter.builder("audit.dropped").register(meterRegistry);
+        spilledCounter = Counter.builder("audit.spilled").register(meterRegistry);
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "audit-log-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+        synchronized (spillLock) {
+            closeSpill();
+        }
+    }
+
+    public void submit(AuditLog auditLog) {
+        if (buffer.offer(auditLog)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                    if (buffer.offer(auditLog)) {
+                        return;
+                    }
+                }
+                droppedCounter.increment();
+            }
+            case CALLER_RUNS -> flush(List.of(auditLog));
+            case SPILL -> spill(List.of(auditLog));
+            default -> droppedCounter.increment();
+        }
+    }
+
+    private void drainLoop() {
+        replaySpill(); // entries spilled before the last shutdown
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long batchStartedAt = System.currentTimeMillis();
+        while (running || buffer.size() > 0) {
+            flushSpill();
+            buffer.drainTo(batch, batchSize - batch.size());
+            long now = System.currentTimeMillis();
+            boolean due = batch.size() >= batchSize || (!batch.isEmpty() && now - batchStartedAt >= flushIntervalMs);
+            if (due || (!running && !batch.isEmpty())) {
+                if (flush(batch)) {
+                    replaySpill();
+                }
+                batch = new ArrayList<>(batchSize);
+                batchStartedAt = System.currentTimeMillis();
+            } else if (batch.isEmpty()) {
+                batchStartedAt = now;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.min(flushIntervalMs, 50)));
+            } else {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private boolean flush(List<AuditLog> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> auditLogRepository.saveAll(batch));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Audit flush of {} entries failed: {}", batch.size(), e.getMessage());
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spill(batch);
+            } else {
+                droppedCounter.increment(batch.size());
+            }
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Appends entries to the spill file as (epoch millis, username, action) records
+    private void spill(List<AuditLog> entries) {
+        synchronized (spillLock) {
+            try {
+                if (spillOut == null) {
+                    spillOut = openSpill(StandardOpenOption.APPEND);
+                }
+                writeEntries(spillOut, entries);
+                spillPending = true;
+                spilledCounter.increment(entries.size());
+            } catch (IOException e) {
+                log.error("Audit spill failed, dropping {} entries", entries.size(), e);
+                droppedCounter.increment(entries.size());
+            }
+        }
+    }
+
+    private void replaySpill() {
+        if (!spillPending) {
+            return;
+        }
+        synchronized (spillLock) {
+            List<AuditLog> entries;
+            try {
+                closeSpill();
+                entries = readSpill();
+            } catch (IOException e) {
+                log.error("Audit spill replay failed", e);
+                return;
+            }
+            int replayed = 0;
+            try {
+                while (replayed < entries.size()) {
+                    List<AuditLog> chunk = entries.subList(replayed, Math.min(entries.size(), replayed + batchSize));
+                    transactionTemplate.executeWithoutResult(status -> auditLogRepository.saveAll(chunk));
+                    replayed += chunk.size();
+                }
+                Files.deleteIfExists(spillFile);
+                spillPending = false;
+            } catch (RuntimeException | IOException e) {
+                // Keep only what was not written yet; it is retried after the next successful flush
+                log.warn("Audit spill replay deferred after {} entries: {}", replayed, e.getMessage());
+                try {
+                    writeSpill(entries.subList(replayed, entries.size()), StandardOpenOption.TRUNCATE_EXISTING);
+                } catch (IOException rewriteFailure) {
+                    log.error("Audit spill rewrite failed", rewriteFailure);
+                }
+            }
+        }
+    }
+
+    private void flushSpill() {
+        synchronized (spillLock) {
+            if (spillOut == null) {
+                return;
+            }
+            try {
+                spillOut.flush();
+            } catch (IOException e) {
+                log.error("Audit spill flush failed", e);
+            }
+        }
+    }
+
+    // Caller holds spillLock
+    private void closeSpill() {
+        if (spillOut == null) {
+            return;
+        }
+        try {
+            spillOut.close();
+        } catch (IOException e) {
+            log.error("Audit spill close failed", e);
+        }
+        spillOut = null;
+    }
+
+    private void writeSpill(List<AuditLog> entries, StandardOpenOption mode) throws IOException {
+        try (DataOutputStream out = openSpill(mode)) {
+            writeEntries(out, entries);
+        }
+    }
+
+    private DataOutputStream openSpill(StandardOpenOption mode) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                spillFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)));
+    }
+
+    private static void writeEntries(DataOutputStream out, List<AuditLog> entries) throws IOException {
+        for (AuditLog entry : entries) {
+            out.writeLong(entry.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+            out.writeUTF(entry.getUsername());
+            out.writeUTF(entry.getAction());
+        }
+    }
+
+    private List<AuditLog> readSpill() throws IOException {
+        List<AuditLog> entries = new ArrayList<>();
+        if (!Files.exists(spillFile)) {
+            return entries;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile)))) {
+            while (true) {
+                AuditLog entry = new AuditLog();
+                entry.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC));
+                entry.setUsername(in.readUTF());
+                entry.setAction(in.readUTF());
+                entries.add(entry);
+            }
+        } catch (EOFException e) {
+            return entries; // end of spill file
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.kafka.KafkaCompensationProducerService;
+import com.example.paymentgateway.kafka.KafkaProducerService;
+import com.example.paymentgateway.kafka.PaymentEvent;
+import com.example.paymentgateway.kafka.PaymentEventType;
+import com.example.paymentgateway.model.PaymentState;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.TransactionRepository;
+import com.example.paymentgateway.util.LogUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Applies compensation (void of a failed payment's authorization) and refund requests in batches.
+ * Requests are collapsed per transaction id, and each transaction is claimed (moved to
+ * COMPENSATING / REFUND_PENDING under a row lock) before the acquirer is called, so redelivered or
+ * concurrent requests do not start a second call. Acquirer calls for a batch run concurrently with
+ * an idempotency key, and the outcomes are written as one row-locked UPDATE per chunk of ids,
+ * together with their outbox events.
+ */
+@Service
+public class CompensationService {
+    private static final Logger log = LogUtil.getLogger(CompensationService.class);
+    private static final int ID_CHUNK_SIZE = 1000; // keeps IN lists within driver/database limits
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private AcquirerClient acquirerClient;
+    @Autowired
+    private KafkaProducerService kafkaProducerService;
+    @Autowired
+    private KafkaCompensationProducerService kafkaCompensationProducerService;
+    @Autowired
+    private PaymentOrchestrator paymentOrchestrator;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${compensation.acquirer-timeout-ms:5000}")
+    private long acquirerTimeoutMs;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter appliedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        appliedCounter = Counter.builder("compensation.events").tag("outcome", "applied").register(meterRegistry);
+        failedCounter = Counter.builder("compensation.events").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    // Queues a refund of a captured transaction; the batch processor applies it. Only the owning
+    // user may refund: merchantId is self-declared at registration, so it grants no access on its own
+    @Transactional
+    public void requestRefund(User user, Long transactionId) {
+        Transaction transaction = transactionRepository.findById(transactionId)
+                .filter(t -> t.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+        if (!transaction.isSuccessful()) {
+            throw new IllegalArgumentException("Only successful transactions can be refunded");
+        }
+        kafkaCompensationProducerService.sendCompensationEvent(PaymentEvent.of(PaymentEventType.REFUND_REQUESTED, transaction));
+    }
+
+    /**
+     * Applies a batch of compensation-topic events and returns the ones that could not be applied
+     * (acquirer declined, failed or timed out) so the caller can schedule a retry.
+     */
+    public List<PaymentEvent> process(List<PaymentEvent> events) {
+        Map<Long, PaymentEvent> voids = new LinkedHashMap<>();
+        Map<Long, PaymentEvent> refunds = new LinkedHashMap<>();
+        for (PaymentEvent event : events) {
+            switch (event.getType()) {
+                case COMPENSATION_REQUESTED -> voids.put(event.getTransactionId(), event);
+                case REFUND_REQUESTED -> refunds.put(event.getTransactionId(), event);
+                default -> log.debug("Ignoring compensation event {}", event);
+            }
+        }
+        List<PaymentEvent> retry = new ArrayList<>();
+        // One key per transaction and operation: a transaction is voided or refunded at most once
+        apply(voids, PaymentState.FAILED, PaymentState.COMPENSATING, PaymentState.COMPENSATED,
+                PaymentEventType.PAYMENT_COMPENSATED,
+                (id, amount) -> acquirerClient.voidAuthorization(id, amount, "void:" + id), retry);
+        apply(refunds, PaymentState.CAPTURED, PaymentState.REFUND_PENDING, PaymentState.REFUNDED,
+                PaymentEventType.PAYMENT_REFUNDED,
+                (id, amount) -> acquirerClient.refund(id, amount, "refund:" + id), retry);
+        failedCounter.increment(retry.size());
+        return retry;
+    }
+
+    private void apply(Map<Long, PaymentEvent> requested, PaymentState from, PaymentState claim, PaymentState to,
+                       PaymentEventType outcome, BiFunction<Long, Long, CompletableFuture<Boolean>> acquirerCall,
+                       List<PaymentEvent> retry) {
+        if (requested.isEmpty()) {
+            return;
+        }
+        // Claim before calling the acquirer: rows still in the source status move to the claim status
+        // under row locks and commit, so no other batch can start the same call. Claims left by an
+        // interrupted run are picked up again; the idempotency key makes the repeated call safe.
+        List<Long> claimed = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (List<Long> chunk : chunks(requested.keySet())) {
+                ids.addAll(transactionRepository.findIdsInStatus(chunk, claim.status()));
+                List<Long> locked = transactionRepository.lockIdsInStatus(chunk, code(from));
+                if (!locked.isEmpty()) {
+                    transactionRepository.transitionStatuses(locked, from.status(), claim.status());
+                    ids.addAll(locked);
+                }
+            }
+            return ids;
+        });
+        Map<Long, CompletableFuture<Boolean>> calls = new LinkedHashMap<>();
+        for (Long id : claimed) {
+            calls.put(id, acquirerCall.apply(id, requested.get(id).getAmountMinor())
+                    .orTimeout(acquirerTimeoutMs, TimeUnit.MILLISECONDS));
+        }
+        List<Long> approved = new ArrayList<>();
+        List<Long> declined = new ArrayList<>();
+        calls.forEach((id, call) -> {
+            try {
+                if (Boolean.TRUE.equals(call.join())) {
+                    approved.add(id);
+                    return;
+                }
+                declined.add(id);
+            } catch (CompletionException e) {
+                // Outcome unknown: the claim stays so the retry repeats the call under the same key
+                log.warn("Acquirer {} call for transaction {} failed: {}", outcome, id, e.getCause().toString());
+            }
+            retry.add(requested.get(id));
+        });
+        if (approved.isEmpty() && declined.isEmpty()) {
+            return;
+        }
+        List<Long> moved = transactionTemplate.execute(status -> {
+            List<Long> applied = new ArrayList<>();
+            for (List<Long> chunk : chunks(approved)) {
+                List<Long> locked = transactionRepository.lockIdsInStatus(chunk, code(claim));
+                if (locked.isEmpty()) {
+                    continue;
+                }
+                transactionRepository.transitionStatuses(locked, claim.status(), to.status());
+                for (Long id : locked) {
+                    kafkaProducerService.sendTransactionEvent(requested.get(id).next(outcome, to.status().name()));
+                }
+                applied.addAll(locked);
+            }
+            // A definite decline releases the claim, leaving the transaction as it was before the request
+            for (List<Long> chunk : chunks(declined)) {
+                List<Long> locked = transactionRepository.lockIdsInStatus(chunk, code(claim));
+                if (!locked.isEmpty()) {
+                    transactionRepository.transitionStatuses(locked, claim.status(), from.status());
+                }
+            }
+            return applied;
+        });
+        for (Long id : moved) {
+            paymentOrchestrator.stateChanged(id, to);
+        }
+        appliedCounter.increment(moved.size());
+    }
+
+    private static String code(PaymentState state) {
+        return String.valueOf(state.status().code());
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += ID_CHUNK_SIZE) {
+            chunks.add(all.subList(i, Math.min(i + ID_CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+}
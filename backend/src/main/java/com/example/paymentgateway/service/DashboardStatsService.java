@@ -0,0 +1,292 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.kafka.PaymentEvent;
+import com.example.paymentgateway.model.DashboardStats;
+import com.example.paymentgateway.model.DashboardStatsRollup;
+import com.example.paymentgateway.model.StatsTotals;
+import com.example.paymentgateway.repository.DashboardStatsRollupRepository;
+import com.example.paymentgateway.util.ExpiringCache;
+import com.example.paymentgateway.util.LogUtil;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Incremental per-user and per-tenant dashboard counters fed from the transactions topic,
+ * kept per currency so amounts in different minor units are never added together.
+ * Events only touch striped in-memory adders; a periodic checkpoint adds the accumulated
+ * deltas to the rollup table. Reads combine the checkpointed rows (cached briefly) with the
+ * not-yet-checkpointed deltas and never touch the transactions table.
+ */
+@Service
+public class DashboardStatsService {
+    private static final Logger log = LogUtil.getLogger(DashboardStatsService.class);
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 86_400_000L;
+
+    @Autowired
+    private DashboardStatsRollupRepository rollupRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Currency of events from producers that predate the currency field
+    @Value("${payment.default-currency:USD}")
+    private Currency defaultCurrency;
+
+    @Value("${dashboard.stats.hours:24}")
+    private int hours;
+
+    @Value("${dashboard.stats.days:30}")
+    private int days;
+
+    @Value("${dashboard.stats.snapshot.max-size:10000}")
+    private int snapshotMaxSize;
+
+    @Value("${dashboard.stats.snapshot.ttl-ms:30000}")
+    private long snapshotTtlMs;
+
+    @Value("${dashboard.stats.hour-retention-days:7}")
+    private int hourRetentionDays;
+
+    @Value("${dashboard.stats.day-retention-days:400}")
+    private int dayRetentionDays;
+
+    private final Map<BucketKey, Counters> pending = new ConcurrentHashMap<>();
+    // Currencies with not-yet-checkpointed counters per scope, so reads find them without scanning pending
+    private final Map<String, Set<String>> pendingCurrencies = new ConcurrentHashMap<>();
+    private ExpiringCache<String, Map<BucketKey, StatsTotals>> checkpointed;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        checkpointed = new ExpiringCache<>(snapshotMaxSize, snapshotTtlMs);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    record BucketKey(String scope, String currency, String granularity, long bucketStart) {
+    }
+
+    public void record(PaymentEvent event) {
+        if (!Counters.tracks(event)) {
+            return;
+        }
+        String currency = event.getCurrency() != null ? event.getCurrency() : defaultCurrency.getCurrencyCode();
+        if (event.getUserId() != 0) {
+            record(userScope(event.getUserId()), currency, event);
+        }
+        if (event.getTenant() != null) {
+            record(tenantScope(event.getTenant()), currency, event);
+        }
+    }
+
+    // Keyed by ISO 4217 currency code; amounts are minor units of that currency
+    public Map<String, DashboardStats> userStats(Long userId) {
+        return statsFor(userScope(userId));
+    }
+
+    public Map<String, DashboardStats> tenantStats(String tenant) {
+        return statsFor(tenantScope(tenant));
+    }
+
+    /**
+     * Adds everything accumulated since the last checkpoint to the rollup table. On failure the
+     * deltas are put back and retried next round. Events consumed after the last checkpoint are
+     * lost on a crash, so the dashboard is an approximation, not a ledger.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.stats.checkpoint-interval-ms:10000}")
+    public void checkpoint() {
+        // Cleared before draining: currencies recorded from here on are re-registered by record()
+        pendingCurrencies.clear();
+        Map<BucketKey, StatsTotals> deltas = new HashMap<>();
+        for (Map.Entry<BucketKey, Counters> entry : pending.entrySet()) {
+            StatsTotals delta = entry.getValue().drain();
+            if (!delta.isEmpty()) {
+                deltas.put(entry.getKey(), delta);
+            } else if (pending.remove(entry.getKey(), entry.getValue())) {
+                // Idle since the last checkpoint; keep anything that raced in before the removal
+                StatsTotals late = entry.getValue().drain();
+                if (!late.isEmpty()) {
+                    deltas.put(entry.getKey(), late);
+                }
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach((key, delta) ->
+                    rollupRepository.addDelta(key.scope(), key.currency(), key.granularity(), key.bucketStart(),
+                            delta.count(), delta.volumeMinor(), delta.succeeded(), delta.succeededMinor(),
+                            delta.failed(), delta.refunded(), delta.refundedMinor())));
+        } catch (RuntimeException e) {
+            log.warn("Dashboard stats checkpoint of {} buckets failed, retrying next round: {}", deltas.size(), e.toString());
+            deltas.forEach((key, delta) -> counters(key).add(delta));
+            return;
+        }
+        // Deltas are in the rollup now; reload those scopes on the next read
+        deltas.keySet().stream().map(BucketKey::scope).distinct().forEach(checkpointed::invalidate);
+    }
+
+    @PreDestroy
+    void flush() {
+        checkpoint();
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.stats.cleanup-interval-ms:3600000}")
+    public void purgeExpiredBuckets() {
+        long now = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteBucketsBefore(DashboardStatsRollup.HOUR, now - hourRetentionDays * DAY_MS);
+            rollupRepository.deleteBucketsBefore(DashboardStatsRollup.DAY, now - dayRetentionDays * DAY_MS);
+        });
+    }
+
+    // Bounded by the window (1 + hours + days lookups), independent of the scope's history
+    private Map<String, DashboardStats> statsFor(String scope) {
+        Map<BucketKey, StatsTotals> rows = checkpointed.computeIfAbsent(scope, this::loadWindow);
+        Set<String> currencies = new TreeSet<>(pendingCurrencies.getOrDefault(scope, Set.of()));
+        rows.keySet().forEach(key -> currencies.add(key.currency()));
+        long now = System.currentTimeMillis();
+        Map<String, DashboardStats> stats = new LinkedHashMap<>();
+        for (String currency : currencies) {
+            StatsTotals total = merged(rows, new BucketKey(scope, currency, DashboardStatsRollup.TOTAL, 0));
+            stats.put(currency, new DashboardStats(total,
+                    buckets(rows, scope, currency, DashboardStatsRollup.HOUR, HOUR_MS, hours, now),
+                    buckets(rows, scope, currency, DashboardStatsRollup.DAY, DAY_MS, days, now)));
+        }
+        return stats;
+    }
+
+    private List<DashboardStats.Bucket> buckets(Map<BucketKey, StatsTotals> rows, String scope, String currency,
+                                                String granularity, long width, int count, long now) {
+        long current = Math.floorDiv(now, width) * width;
+        List<DashboardStats.Bucket> buckets = new ArrayList<>();
+        for (int i = count - 1; i >= 0; i--) {
+            long start = current - i * width;
+            StatsTotals totals = merged(rows, new BucketKey(scope, currency, granularity, start));
+            if (!totals.isEmpty()) {
+                buckets.add(new DashboardStats.Bucket(start, totals));
+            }
+        }
+        return buckets;
+    }
+
+    private StatsTotals merged(Map<BucketKey, StatsTotals> rows, BucketKey key) {
+        StatsTotals totals = rows.getOrDefault(key, StatsTotals.EMPTY);
+        Counters counters = pending.get(key);
+        return counters == null ? totals : totals.plus(counters.peek());
+    }
+
+    private Map<BucketKey, StatsTotals> loadWindow(String scope) {
+        long now = System.currentTimeMillis();
+        long hourFrom = (Math.floorDiv(now, HOUR_MS) - hours + 1) * HOUR_MS;
+        long dayFrom = (Math.floorDiv(now, DAY_MS) - days + 1) * DAY_MS;
+        Map<BucketKey, StatsTotals> rows = new HashMap<>();
+        for (DashboardStatsRollup row : rollupRepository.findWindow(scope, hourFrom, dayFrom)) {
+            rows.put(new BucketKey(row.getScope(), row.getCurrency(), row.getGranularity(), row.getBucketStart()),
+                    row.toTotals());
+        }
+        return rows;
+    }
+
+    private void record(String scope, String currency, PaymentEvent event) {
+        long ts = event.getTimestampMillis();
+        counters(new BucketKey(scope, currency, DashboardStatsRollup.TOTAL, 0)).record(event);
+        counters(new BucketKey(scope, currency, DashboardStatsRollup.HOUR, Math.floorDiv(ts, HOUR_MS) * HOUR_MS))
+                .record(event);
+        counters(new BucketKey(scope, currency, DashboardStatsRollup.DAY, Math.floorDiv(ts, DAY_MS) * DAY_MS))
+                .record(event);
+    }
+
+    private Counters counters(BucketKey key) {
+        pendingCurrencies.computeIfAbsent(key.scope(), scope -> ConcurrentHashMap.newKeySet()).add(key.currency());
+        return pending.computeIfAbsent(key, k -> new Counters());
+    }
+
+    private static String userScope(long userId) {
+        return "user:" + userId;
+    }
+
+    private static String tenantScope(String tenant) {
+        return "tenant:" + tenant;
+    }
+
+    /**
+     * Striped counters for one bucket. Created counts submitted volume; captured, failed
+     * (declined or compensated) and refunded count outcomes, so no payment is counted twice.
+     */
+    static final class Counters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder volumeMinor = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder succeededMinor = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder refunded = new LongAdder();
+        private final LongAdder refundedMinor = new LongAdder();
+
+        static boolean tracks(PaymentEvent event) {
+            return switch (event.getType()) {
+                case TRANSACTION_CREATED, PAYMENT_CAPTURED, PAYMENT_FAILED, PAYMENT_COMPENSATED, PAYMENT_REFUNDED -> true;
+                default -> false;
+            };
+        }
+
+        void record(PaymentEvent event) {
+            switch (event.getType()) {
+                case TRANSACTION_CREATED -> {
+                    count.increment();
+                    volumeMinor.add(event.getAmountMinor());
+                }
+                case PAYMENT_CAPTURED -> {
+                    succeeded.increment();
+                    succeededMinor.add(event.getAmountMinor());
+                }
+                case PAYMENT_FAILED, PAYMENT_COMPENSATED -> failed.increment();
+                case PAYMENT_REFUNDED -> {
+                    refunded.increment();
+                    refundedMinor.add(event.getAmountMinor());
+                }
+                default -> {
+                }
+            }
+        }
+
+        void add(StatsTotals totals) {
+            count.add(totals.count());
+            volumeMinor.add(totals.volumeMinor());
+            succeeded.add(totals.succeeded());
+            succeededMinor.add(totals.succeededMinor());
+            failed.add(totals.failed());
+            refunded.add(totals.refunded());
+            refundedMinor.add(totals.refundedMinor());
+        }
+
+        StatsTotals peek() {
+            return new StatsTotals(count.sum(), volumeMinor.sum(), succeeded.sum(), succeededMinor.sum(),
+                    failed.sum(), refunded.sum(), refundedMinor.sum());
+        }
+
+        StatsTotals drain() {
+            return new StatsTotals(count.sumThenReset(), volumeMinor.sumThenReset(), succeeded.sumThenReset(),
+                    succeededMinor.sumThenReset(), failed.sumThenReset(), refunded.sumThenReset(),
+                    refundedMinor.sumThenReset());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.repository.TransactionRepository;
+import com.example.paymentgateway.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolves (user, reference) idempotency keys to an already-created transaction.
+ * Lookups go through a bounded TTL cache of transaction ids first and fall back to an indexed
+ * query on (user_id, reference); no transaction history is scanned. Only ids are cached: a hit
+ * is re-read by primary key, so callers always get the current row in their own persistence
+ * context rather than a shared, possibly stale entity.
+ */
+@Service
+public class IdempotencyService {
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Value("${idempotency.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${idempotency.cache.ttl-ms:600000}") // 10 minutes
+    private long cacheTtlMs;
+
+    private ExpiringCache<String, Long> cache;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    @PostConstruct
+    void init() {
+        cache = new ExpiringCache<>(cacheMaxSize, cacheTtlMs);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Claims the idempotency key for the current transaction and returns the transaction
+     * previously created under it, or null if the caller should create one.
+     * Concurrent callers with the same key are serialized until the claiming database
+     * transaction completes, so in-process retries resolve to a single insert; the unique
+     * (user_id, reference) constraint covers retries that land on another node.
+     */
+    public Transaction claim(Long userId, String reference) {
+        String key = key(userId, reference);
+        ReentrantLock lock = locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+        lock.lock();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
+        } else {
+            // No surrounding transaction to hold the key for; fall back to the unique constraint
+            lock.unlock();
+        }
+        Long cachedId = cache.get(key);
+        if (cachedId != null) {
+            Transaction existing = transactionRepository.findById(cachedId).orElse(null);
+            if (existing != null) {
+                return existing;
+            }
+            cache.invalidate(key);
+        }
+        Transaction existing = transactionRepository.findByUserIdAndReference(userId, reference).orElse(null);
+        if (existing != null) {
+            cache.put(key, existing.getId());
+        }
+        return existing;
+    }
+
+    /**
+     * Records a newly created transaction under its key once the surrounding transaction commits.
+     */
+    public void remember(Long userId, String reference, Transaction transaction) {
+        String key = key(userId, reference);
+        Long id = transaction.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(key, id);
+                }
+            });
+        } else {
+            cache.put(key, id);
+        }
+    }
+
+    private static String key(Long userId, String reference) {
+        return userId + ":" + reference;
+    }
+}
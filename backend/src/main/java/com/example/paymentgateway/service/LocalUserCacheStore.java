@@ -0,0 +1,54 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for the shared user cache tier; invalidations are delivered synchronously
+ * to the subscribers of this JVM only.
+ */
+@Component
+public class LocalUserCacheStore implements UserCacheStore {
+    @Value("${user.cache.remote.max-size:100000}")
+    private int maxSize;
+    @Value("${user.cache.remote.ttl-ms:1800000}") // 30 minutes
+    private long ttlMs;
+
+    private ExpiringCache<String, User> entries;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void init() {
+        entries = new ExpiringCache<>(maxSize, ttlMs);
+    }
+
+    @Override
+    public User get(String username) {
+        return entries.get(username);
+    }
+
+    @Override
+    public void put(String username, User user) {
+        entries.put(username, user);
+    }
+
+    @Override
+    public void evict(String username) {
+        entries.invalidate(username);
+        for (Consumer<String> listener : listeners) {
+            listener.accept(username);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> invalidationListener) {
+        listeners.add(invalidationListener);
+    }
+}
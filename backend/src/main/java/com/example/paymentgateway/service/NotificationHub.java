@@ -0,0 +1,280 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.Notification;
+import com.example.paymentgateway.repository.NotificationRepository;
+import com.example.paymentgateway.util.BoundedRingBuffer;
+import com.example.paymentgateway.util.LogUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of notifications to connected SSE clients, keyed by username.
+ * Publishing never blocks on a client: each subscriber has a small bounded queue drained
+ * by a shared dispatch pool, and a subscriber whose queue overflows is disconnected
+ * (it resumes from Last-Event-ID on reconnect) so slow clients cannot pin memory.
+ * A resuming subscriber is replayed page by page from the database first; live events
+ * published meanwhile wait in its queue and are sent once the replay has caught up.
+ * <p>
+ * Only dispatch threads write to clients. SseEmitter sends block (and hold the emitter's lock)
+ * while a client is not reading, so heartbeats are queued like events, emitters are completed
+ * on the dispatch pool, and the pool grows to dispatch-threads so a stalled client pins only
+ * its own thread. The heartbeat drops a subscriber whose send has not finished within send-timeout.
+ */
+@Component
+public class NotificationHub {
+    private static final Logger log = LogUtil.getLogger(NotificationHub.class);
+    // Queued like a notification so the scheduler thread never writes to a client
+    private static final Notification HEARTBEAT = new Notification();
+
+    @Value("${notifications.stream.timeout-ms:1800000}") // 30 minutes, clients reconnect
+    private long emitterTimeoutMs;
+    @Value("${notifications.stream.queue-size:256}")
+    private int queueSize;
+    @Value("${notifications.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+    // Upper bound; idle dispatch threads exit
+    @Value("${notifications.stream.dispatch-threads:64}")
+    private int dispatchThreads;
+    @Value("${notifications.stream.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+    @Value("${notifications.stream.replay-page-size:100}")
+    private int replayPageSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private final Map<String, Deque<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private ExecutorService dispatcher;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "notification-dispatch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        dispatcher = pool;
+        Gauge.builder("notifications.stream.connections", connections, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    // Registers before replaying so nothing published in between is lost; lastEventId may be null
+    public SseEmitter subscribe(String username, Long lastEventId) {
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(username, emitter, lastEventId != null);
+        Deque<Subscriber> userSubscribers = subscribers.compute(username, (u, existing) -> {
+            Deque<Subscriber> deque = existing != null ? existing : new ConcurrentLinkedDeque<>();
+            deque.add(subscriber);
+            return deque;
+        });
+        connections.incrementAndGet();
+        // Oldest connection gives way when a user opens too many streams
+        while (userSubscribers.size() > maxConnectionsPerUser) {
+            Subscriber oldest = userSubscribers.peekFirst();
+            if (oldest == null || oldest == subscriber) {
+                break;
+            }
+            oldest.close();
+        }
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.remove());
+        if (lastEventId != null) {
+            dispatcher.execute(() -> subscriber.replay(lastEventId));
+        }
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    public void publish(Notification notification) {
+        Deque<Subscriber> userSubscribers = subscribers.get(notification.getUsername());
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.enqueue(notification);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Deque<Subscriber> userSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : userSubscribers) {
+                if (subscriber.stalled(now)) {
+                    log.debug("Disconnecting stalled notification stream for {}", subscriber.username);
+                    subscriber.close();
+                } else {
+                    subscriber.enqueue(HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(Notification notification) {
+        return SseEmitter.event()
+                .id(String.valueOf(notification.getStreamSeq()))
+                .name("notification")
+                .data(notification);
+    }
+
+    private final class Subscriber {
+        final String username;
+        final SseEmitter emitter;
+        final BoundedRingBuffer<Notification> pending = new BoundedRingBuffer<>(queueSize);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean removed = new AtomicBoolean();
+        // Live events are only queued while replaying; replayedUpTo then drops the ones the replay already sent
+        volatile boolean replaying;
+        volatile long replayedUpTo = Long.MIN_VALUE;
+        // When the send in progress started; 0 while not sending
+        volatile long sendingSince;
+
+        Subscriber(String username, SseEmitter emitter, boolean replaying) {
+            this.username = username;
+            this.emitter = emitter;
+            this.replaying = replaying;
+        }
+
+        void enqueue(Notification notification) {
+            if (!pending.offer(notification)) {
+                log.debug("Disconnecting slow notification stream for {}", username);
+                close();
+                return;
+            }
+            if (!replaying) {
+                schedule();
+            }
+        }
+
+        // One page per task so a long replay does not hold a dispatch thread from other subscribers
+        void replay(long after) {
+            if (removed.get()) {
+                return;
+            }
+            List<Notification> page;
+            try {
+                page = notificationRepository.findByUsernameAndStreamSeqGreaterThanOrderByStreamSeqAsc(
+                        username, after, PageRequest.of(0, replayPageSize));
+                for (Notification notification : page) {
+                    send(toEvent(notification));
+                    after = notification.getStreamSeq();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Notification replay failed for {}", username, e);
+                close();
+                return;
+            }
+            long next = after;
+            if (page.size() == replayPageSize) {
+                dispatcher.execute(() -> replay(next));
+                return;
+            }
+            replayedUpTo = next;
+            replaying = false;
+            schedule();
+        }
+
+        void schedule() {
+            if (!removed.get() && scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                Notification notification;
+                while (!removed.get() && (notification = pending.poll()) != null) {
+                    if (notification == HEARTBEAT) {
+                        send(SseEmitter.event().comment("heartbeat"));
+                    } else if (notification.getStreamSeq() == null || notification.getStreamSeq() > replayedUpTo) {
+                        send(toEvent(notification));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                scheduled.set(false);
+                if (!replaying && pending.size() > 0) {
+                    schedule();
+                }
+            }
+        }
+
+        void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendingSince = System.currentTimeMillis();
+            try {
+                emitter.send(event);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+
+        boolean stalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeoutMs;
+        }
+
+        // Completing waits for a send in progress, so it happens on the dispatch pool, never the caller's thread
+        void close() {
+            if (remove()) {
+                try {
+                    dispatcher.execute(emitter::complete);
+                } catch (RejectedExecutionException e) {
+                    // shutting down; the container completes the request
+                }
+            }
+        }
+
+        boolean remove() {
+            if (!removed.compareAndSet(false, true)) {
+                return false;
+            }
+            connections.decrementAndGet();
+            subscribers.computeIfPresent(username, (u, deque) -> {
+                deque.remove(this);
+                return deque.isEmpty() ? null : deque;
+            });
+            return true;
+        }
+    }
+}
@@ -12,13 +12,17 @@ import java.util.List;
 public class NotificationService {
     @Autowired
     private NotificationRepository notificationRepository;
+    @Autowired
+    private NotificationHub notificationHub;
 
     public Notification sendNotification(String username, String message) {
         Notification notification = new Notification();
         notification.setUsername(username);
         notification.setMessage(message);
         notification.setTimestamp(LocalDateTime.now());
-        return notificationRepository.save(notification);
+        Notification saved = notificationRepository.save(notification);
+        notificationHub.publish(saved); // push to connected streams instead of waiting for a poll
+        return saved;
     }
 
     public List<Notification> getUserNotifications(String username) {
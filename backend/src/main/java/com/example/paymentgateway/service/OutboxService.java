@@ -0,0 +1,31 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.OutboxEvent;
+import com.example.paymentgateway.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records events in the outbox table as part of the caller's database transaction;
+ * OutboxRelay publishes them to Kafka after commit. An event therefore exists exactly
+ * when the business change it describes was committed.
+ */
+@Service
+public class OutboxService {
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent enqueue(String topic, String key, byte[] payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTopic(topic);
+        event.setEventKey(key);
+        event.setPayload(payload);
+        event.setCreatedAt(LocalDateTime.now());
+        return outboxEventRepository.save(event);
+    }
+}
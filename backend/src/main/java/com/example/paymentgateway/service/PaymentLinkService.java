@@ -0,0 +1,214 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.Money;
+import com.example.paymentgateway.model.PaymentLink;
+import com.example.paymentgateway.model.PaymentLinkRequest;
+import com.example.paymentgateway.model.ResolvedPaymentLink;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.PaymentLinkRepository;
+import com.example.paymentgateway.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Payment links: owner CRUD plus the public resolve path, which is read far more often than
+ * links are written. Resolution is served from a bounded TTL cache that also remembers unknown
+ * codes briefly; usage limits and expiry are enforced by one conditional UPDATE per payment.
+ */
+@Service
+public class PaymentLinkService {
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int CODE_ATTEMPTS = 3;
+    // Leaves room for "link:<code>:" within the 100-character transaction reference
+    private static final int CLIENT_KEY_MAX_LENGTH = 64;
+    // Negative-cache entry for codes that do not exist
+    private static final ResolvedPaymentLink UNKNOWN = new ResolvedPaymentLink(null, null, null, null, null, null, false);
+
+    @Autowired
+    private PaymentLinkRepository paymentLinkRepository;
+    @Autowired
+    private TransactionIntakeService transactionIntakeService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 62^10 ~ 8.4e17 codes: collisions are vanishingly rare and retried against the unique index
+    @Value("${payment-links.code-length:10}")
+    private int codeLength;
+
+    @Value("${payment.default-currency:USD}")
+    private Currency defaultCurrency;
+
+    @Value("${payment-links.cache.max-size:100000}")
+    private int cacheMaxSize;
+
+    @Value("${payment-links.cache.ttl-ms:300000}") // 5 minutes
+    private long cacheTtlMs;
+
+    @Value("${payment-links.cache.negative-ttl-ms:30000}")
+    private long negativeTtlMs;
+
+    private final SecureRandom random = new SecureRandom();
+    private ExpiringCache<String, ResolvedPaymentLink> hotLinks;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        hotLinks = new ExpiringCache<>(cacheMaxSize, cacheTtlMs);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public PaymentLink createPaymentLink(User owner, PaymentLinkRequest request) {
+        if (!owner.isEnabled()) {
+            throw new IllegalArgumentException("User account is disabled");
+        }
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Payment link amount must be positive");
+        }
+        Currency currency = request.getCurrency() != null ? request.getCurrency() : defaultCurrency;
+        Money.of(request.getAmount(), currency); // rejects amounts the currency cannot represent exactly
+        validateLimits(request);
+        for (int attempt = 1; ; attempt++) {
+            PaymentLink link = new PaymentLink();
+            link.setCode(newCode());
+            link.setAmount(request.getAmount());
+            link.setCurrency(currency);
+            link.setDescription(request.getDescription());
+            link.setExpiresAt(request.getExpiresAt());
+            link.setMaxUses(request.getMaxUses());
+            link.setUser(owner);
+            link.setMerchantId(owner.getMerchantId());
+            link.setCreatedAt(LocalDateTime.now());
+            try {
+                PaymentLink saved = transactionTemplate.execute(status -> paymentLinkRepository.saveAndFlush(link));
+                hotLinks.invalidate(saved.getCode()); // drop a negative entry for the same code, if any
+                return saved;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == CODE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public List<PaymentLink> getPaymentLinks(User owner) {
+        return paymentLinkRepository.findByUserIdOrderByCreatedAtDesc(owner.getId());
+    }
+
+    public PaymentLink getPaymentLink(User owner, String code) {
+        return findOwned(owner, code);
+    }
+
+    public PaymentLink updatePaymentLink(User owner, String code, PaymentLinkRequest request) {
+        validateLimits(request);
+        PaymentLink updated = transactionTemplate.execute(status -> {
+            PaymentLink link = findOwned(owner, code);
+            if (request.getDescription() != null) {
+                link.setDescription(request.getDescription());
+            }
+            if (request.getExpiresAt() != null) {
+                link.setExpiresAt(request.getExpiresAt());
+            }
+            if (request.getMaxUses() != null) {
+                link.setMaxUses(request.getMaxUses());
+            }
+            if (request.getActive() != null) {
+                link.setActive(request.getActive());
+            }
+            return paymentLinkRepository.save(link);
+        });
+        hotLinks.invalidate(code);
+        return updated;
+    }
+
+    public PaymentLink deactivatePaymentLink(User owner, String code) {
+        PaymentLink link = transactionTemplate.execute(status -> {
+            PaymentLink owned = findOwned(owner, code);
+            owned.deactivate();
+            return paymentLinkRepository.save(owned);
+        });
+        hotLinks.invalidate(code);
+        return link;
+    }
+
+    /**
+     * Public lookup; empty for unknown, inactive, expired or used-up links.
+     * Entries never outlive the link's own expiry.
+     */
+    public Optional<ResolvedPaymentLink> resolve(String code) {
+        LocalDateTime now = LocalDateTime.now();
+        ResolvedPaymentLink link = hotLinks.get(code);
+        if (link == null) {
+            link = paymentLinkRepository.findByCode(code).map(l -> ResolvedPaymentLink.of(l, now)).orElse(UNKNOWN);
+            long ttl = link == UNKNOWN ? negativeTtlMs : cacheTtlMs;
+            if (link.expiresAt() != null) {
+                ttl = Math.min(ttl, Duration.between(now, link.expiresAt()).toMillis());
+            }
+            hotLinks.put(code, link, ttl);
+        }
+        return link.isPayable(now) ? Optional.of(link) : Optional.empty();
+    }
+
+    /**
+     * Submits a payment of the link's amount, in its currency, to its merchant on behalf of the payer.
+     * The use is taken in the same database transaction as the insert (TransactionService.createLinkPayment),
+     * so it is never lost to a failed payment nor given back for one that committed after a timeout.
+     * A client key makes retries idempotent: they resolve to the first payment instead of taking another use.
+     */
+    public CompletableFuture<Transaction> pay(User payer, String code, String clientKey) {
+        // Cheap rejection of known-unpayable links from the cached view; the DB has the final say
+        resolve(code).orElseThrow(() -> new IllegalArgumentException("Payment link is not payable"));
+        Transaction transaction = new Transaction();
+        if (clientKey != null && !clientKey.isEmpty()) {
+            if (clientKey.length() > CLIENT_KEY_MAX_LENGTH) {
+                throw new IllegalArgumentException("Idempotency key is too long");
+            }
+            transaction.setReference("link:" + code + ":" + clientKey);
+        }
+        return transactionIntakeService.submitLinkPayment(payer, transaction, code)
+                .whenComplete((saved, error) -> {
+                    if (error != null) {
+                        hotLinks.invalidate(code); // possibly used up or deactivated since it was cached
+                    }
+                });
+    }
+
+    private PaymentLink findOwned(User owner, String code) {
+        PaymentLink link = paymentLinkRepository.findByCode(code)
+                .orElseThrow(() -> new IllegalArgumentException("Payment link not found"));
+        if (!owner.isAdmin() && !link.getUser().getId().equals(owner.getId())) {
+            throw new IllegalArgumentException("Payment link not found");
+        }
+        return link;
+    }
+
+    private static void validateLimits(PaymentLinkRequest request) {
+        if (request.getMaxUses() != null && request.getMaxUses() <= 0) {
+            throw new IllegalArgumentException("maxUses must be positive");
+        }
+        if (request.getExpiresAt() != null && !request.getExpiresAt().isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("expiresAt must be in the future");
+        }
+    }
+
+    private String newCode() {
+        char[] code = new char[codeLength];
+        for (int i = 0; i < codeLength; i++) {
+            code[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(code);
+    }
+}
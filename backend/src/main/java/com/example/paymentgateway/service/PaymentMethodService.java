@@ -1,12 +1,18 @@
 package com.example.paymentgateway.service;
 
 import com.example.paymentgateway.model.PaymentMethod;
+import com.example.paymentgateway.model.PaymentMethodType;
 import com.example.paymentgateway.model.User;
 import com.example.paymentgateway.repository.PaymentMethodRepository;
+import com.example.paymentgateway.util.ExpiringCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import jakarta.annotation.PostConstruct;
 import java.util.List;
 
 @Service
@@ -14,6 +20,21 @@ public class PaymentMethodService {
     @Autowired
     private PaymentMethodRepository paymentMethodRepository;
 
+    @Value("${payment-methods.cache.max-size:50000}")
+    private int cacheMaxSize;
+    @Value("${payment-methods.cache.ttl-ms:600000}") // 10 minutes
+    private long cacheTtlMs;
+
+    // Per-user views keyed by user id, evicted together whenever one of the user's methods changes
+    private ExpiringCache<Long, List<PaymentMethod>> allMethods;
+    private ExpiringCache<Long, List<PaymentMethod>> usableMethods;
+
+    @PostConstruct
+    void init() {
+        allMethods = new ExpiringCache<>(cacheMaxSize, cacheTtlMs);
+        usableMethods = new ExpiringCache<>(cacheMaxSize, cacheTtlMs);
+    }
+
     @Transactional
     public PaymentMethod addPaymentMethod(User user, PaymentMethod paymentMethod) {
         // Business rule: only enabled users can add payment methods
@@ -21,20 +42,50 @@ public class PaymentMethodService {
             throw new IllegalArgumentException("User account is disabled");
         }
         // Business rule: type must be supported
-        if (!isSupportedType(paymentMethod.getType())) {
+        PaymentMethodType type = PaymentMethodType.fromName(paymentMethod.getType());
+        if (type == null) {
             throw new IllegalArgumentException("Unsupported payment method type");
         }
+        paymentMethod.setType(type.name());
         paymentMethod.setUser(user);
         paymentMethod.setMerchantId(user.getMerchantId());
         paymentMethod.setBankId(user.getBankId());
-        return paymentMethodRepository.save(paymentMethod);
+        PaymentMethod saved = paymentMethodRepository.save(paymentMethod);
+        evictAfterCommit(user.getId());
+        return saved;
     }
 
-    private boolean isSupportedType(String type) {
-        return type != null && (type.equalsIgnoreCase("CREDIT_CARD") || type.equalsIgnoreCase("BANK_TRANSFER"));
+    @Transactional
+    public PaymentMethod deactivatePaymentMethod(User user, Long id) {
+        PaymentMethod method = findOwned(user, id);
+        method.deactivate();
+        evictAfterCommit(user.getId());
+        return method;
+    }
+
+    // Verification is an administrative step (e.g. after a micro-deposit check)
+    @Transactional
+    public PaymentMethod verifyPaymentMethod(User admin, Long id) {
+        if (!admin.isAdmin()) {
+            throw new IllegalArgumentException("Only administrators can verify payment methods");
+        }
+        PaymentMethod method = paymentMethodRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Payment method not found"));
+        method.verify();
+        evictAfterCommit(method.getUser().getId());
+        return method;
     }
 
     public List<PaymentMethod> getUserPaymentMethods(User user) {
+        return allMethods.computeIfAbsent(user.getId(), id -> List.copyOf(loadUserPaymentMethods(user)));
+    }
+
+    // Only the methods that can be charged right now (active and verified), for checkout
+    public List<PaymentMethod> getUsablePaymentMethods(User user) {
+        return usableMethods.computeIfAbsent(user.getId(), id -> List.copyOf(paymentMethodRepository.findUsableByUserId(id)));
+    }
+
+    private List<PaymentMethod> loadUserPaymentMethods(User user) {
         if (user.getMerchantId() != null) {
             return paymentMethodRepository.findByUserIdAndMerchantId(user.getId(), user.getMerchantId());
         } else if (user.getBankId() != null) {
@@ -43,4 +94,21 @@ public class PaymentMethodService {
             return paymentMethodRepository.findByUserId(user.getId());
         }
     }
+
+    private PaymentMethod findOwned(User user, Long id) {
+        return paymentMethodRepository.findById(id)
+                .filter(m -> m.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new IllegalArgumentException("Payment method not found"));
+    }
+
+    // Evict once the change is visible to other transactions, so a concurrent read cannot re-cache the old view
+    private void evictAfterCommit(Long userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                allMethods.invalidate(userId);
+                usableMethods.invalidate(userId);
+            }
+        });
+    }
 }
@@ -0,0 +1,289 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.kafka.KafkaCompensationProducerService;
+import com.example.paymentgateway.kafka.KafkaProducerService;
+import com.example.paymentgateway.kafka.KafkaSagaProducerService;
+import com.example.paymentgateway.kafka.PaymentEvent;
+import com.example.paymentgateway.kafka.PaymentEventType;
+import com.example.paymentgateway.model.PaymentState;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionStatus;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.TransactionRepository;
+import com.example.paymentgateway.util.ExpiringCache;
+import com.example.paymentgateway.util.KeyedExecutor;
+import com.example.paymentgateway.util.LogUtil;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Drives each payment through the PaymentState machine from saga events.
+ * Steps are dispatched to KeyedExecutor lanes by transaction id: one payment's steps run in order,
+ * different payments run in parallel. Acquirer calls are asynchronous, so a lane never waits on
+ * the network; the continuation is queued back onto the payment's lane. Each step calls the
+ * acquirer with a key derived from the payment id, so repeating a step never moves money twice. Every transition is a
+ * compare-and-set UPDATE written together with the next saga event in one transaction, so
+ * redelivered events are no-ops. Status reads of final states are served from an in-memory index.
+ */
+@Service
+public class PaymentOrchestrator {
+    private static final Logger log = LogUtil.getLogger(PaymentOrchestrator.class);
+
+    @Autowired
+    private TransactionIntakeService transactionIntakeService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private AcquirerClient acquirerClient;
+    @Autowired
+    private KafkaProducerService kafkaProducerService;
+    @Autowired
+    private KafkaSagaProducerService kafkaSagaProducerService;
+    @Autowired
+    private KafkaCompensationProducerService kafkaCompensationProducerService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ScheduledExecutorService resilienceScheduler;
+
+    @Value("${payment.saga.lanes:16}")
+    private int lanes;
+    @Value("${payment.saga.lane-capacity:10000}")
+    private int laneCapacity;
+    @Value("${payment.saga.defer-ms:1000}")
+    private long deferMs;
+    @Value("${payment.saga.unknown-retries:3}")
+    private int unknownRetries;
+    @Value("${payment.state-index.max-size:200000}")
+    private int stateIndexMaxSize;
+    @Value("${payment.state-index.ttl-ms:3600000}")
+    private long stateIndexTtlMs;
+    @Value("${payment.recovery.stuck-after-ms:900000}") // 15 minutes
+    private long stuckAfterMs;
+    @Value("${payment.recovery.batch-size:500}")
+    private int recoveryBatchSize;
+
+    private KeyedExecutor sagaExecutor;
+    private TransactionTemplate transactionTemplate;
+    // transaction id -> final state and owner
+    private ExpiringCache<Long, PaymentStatus> stateIndex;
+    private Counter recoveredCounter;
+    private Counter unknownCounter;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    void init() {
+        sagaExecutor = new KeyedExecutor("payment-saga", lanes, laneCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        stateIndex = new ExpiringCache<>(stateIndexMaxSize, stateIndexTtlMs);
+        recoveredCounter = Counter.builder("payments.saga.recovered").register(meterRegistry);
+        unknownCounter = Counter.builder("payments.saga.unknown").register(meterRegistry);
+        droppedCounter = Counter.builder("payments.saga.dropped").register(meterRegistry);
+        Gauge.builder("payments.saga.queued", sagaExecutor, KeyedExecutor::queuedTasks).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sagaExecutor.shutdown();
+    }
+
+    // Creates the transaction (INITIATED); its SAGA_STARTED event kicks off authorization
+    public CompletableFuture<Transaction> initiatePayment(User user, Transaction transaction) {
+        return transactionIntakeService.submit(user, transaction);
+    }
+
+    /**
+     * Final states (which can never change again) are served from the in-memory index. Anything
+     * else is read from the database: the saga usually runs on whichever node owns the payment's
+     * partition, so this node's index cannot know about transitions applied elsewhere.
+     */
+    public PaymentStatus getPaymentStatus(Long transactionId) {
+        PaymentStatus status = stateIndex.get(transactionId);
+        if (status != null && status.userId() != null && status.state().status().isFinal()) {
+            return status;
+        }
+        return transactionRepository.findStatusById(transactionId)
+                .map(view -> {
+                    PaymentStatus loaded = new PaymentStatus(view.getUserId(), PaymentState.fromStatus(view.getStatus()));
+                    if (loaded.state().status().isFinal()) {
+                        stateIndex.put(transactionId, loaded);
+                    }
+                    return loaded;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Stuck-payment recovery: payments still PENDING or AUTHORIZED long after creation (saga event
+     * lost, acquirer answer never arrived, a failed transition on the lane) get the saga event for
+     * their next step published again: SAGA_STARTED re-runs authorization, PAYMENT_AUTHORIZED
+     * re-runs capture so held funds are either captured or, on decline, voided. Steps reuse their
+     * acquirer idempotency keys, so a re-drive gets the original answer. Rows are claimed with
+     * SKIP LOCKED and stamped with recovered_at, so with several nodes each stuck payment is
+     * re-driven by one of them, at most once per stuck-after period. Every step ends in
+     * a compare-and-set transition, so a payment that has moved on in the meantime is left untouched.
+     */
+    @Scheduled(fixedDelayString = "${payment.recovery.interval-ms:60000}")
+    void recoverStuckPayments() {
+        LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(stuckAfterMs));
+        redrive(TransactionStatus.PENDING, PaymentEventType.SAGA_STARTED, before);
+        redrive(TransactionStatus.AUTHORIZED, PaymentEventType.PAYMENT_AUTHORIZED, before);
+    }
+
+    // Claims, stamps and re-drives one batch in a single transaction, so no other node re-drives the same rows
+    private void redrive(TransactionStatus stuckIn, PaymentEventType step, LocalDateTime before) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer redriven = transactionTemplate.execute(status -> {
+            List<Long> claimed = transactionRepository.claimStuckIds(String.valueOf(stuckIn.code()), before,
+                    now.minus(Duration.ofMillis(stuckAfterMs)), recoveryBatchSize);
+            if (claimed.isEmpty()) {
+                return 0;
+            }
+            transactionRepository.markRecovered(claimed, now);
+            for (Transaction transaction : transactionRepository.findAllById(claimed)) {
+                kafkaSagaProducerService.sendSagaEvent(PaymentEvent.of(step, transaction));
+            }
+            return claimed.size();
+        });
+        if (redriven != null && redriven > 0) {
+            recoveredCounter.increment(redriven);
+            log.info("Re-drove {} payments {} since before {}", redriven, stuckIn, before);
+        }
+    }
+
+    public void onSagaEvent(PaymentEvent event) {
+        switch (event.getType()) {
+            case SAGA_STARTED -> sagaExecutor.execute(event.getTransactionId(), () -> authorize(event, 0));
+            case PAYMENT_AUTHORIZED -> sagaExecutor.execute(event.getTransactionId(), () -> capture(event, 0));
+            default -> log.debug("Ignoring saga event {}", event);
+        }
+    }
+
+    private void authorize(PaymentEvent event, int attempt) {
+        long id = event.getTransactionId();
+        callAcquirer(event, acquirerClient.authorize(id, event.getAmountMinor(), "auth:" + id), attempt,
+                next -> authorize(event, next), approved -> {
+            if (approved) {
+                transition(event, PaymentState.INITIATED, PaymentState.AUTHORIZED, PaymentEventType.PAYMENT_AUTHORIZED);
+            } else {
+                transition(event, PaymentState.INITIATED, PaymentState.FAILED, PaymentEventType.PAYMENT_FAILED);
+            }
+        });
+    }
+
+    private void capture(PaymentEvent event, int attempt) {
+        long id = event.getTransactionId();
+        callAcquirer(event, acquirerClient.capture(id, event.getAmountMinor(), "capture:" + id), attempt,
+                next -> capture(event, next), approved -> {
+            if (approved) {
+                transition(event, PaymentState.AUTHORIZED, PaymentState.CAPTURED, PaymentEventType.PAYMENT_CAPTURED);
+            } else {
+                // Funds are held by the authorization: fail and ask for it to be voided
+                transition(event, PaymentState.AUTHORIZED, PaymentState.FAILED, PaymentEventType.COMPENSATION_REQUESTED);
+            }
+        });
+    }
+
+    /**
+     * Continues on the payment's lane once the acquirer answers. Only an explicit answer moves the
+     * payment: a timeout or transport error means the outcome is unknown, so the payment stays where
+     * it is and the step is repeated with the same idempotency key (the acquirer replays its original
+     * answer). After unknownRetries attempts the payment is left to stuck-payment recovery.
+     * Completions arrive on timer threads that must never block, so hand-offs use tryExecute.
+     */
+    private void callAcquirer(PaymentEvent event, CompletableFuture<Boolean> call, int attempt,
+                              IntConsumer step, Consumer<Boolean> continuation) {
+        long id = event.getTransactionId();
+        call.whenComplete((approved, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CallNotPermittedException || cause instanceof BulkheadFullException) {
+                // The acquirer was never called (breaker open or saturated): run the step again later
+                defer(id, () -> step.accept(attempt));
+                return;
+            }
+            if (cause != null) {
+                if (attempt < unknownRetries) {
+                    log.warn("Acquirer outcome for transaction {} unknown ({}), retrying", id, cause.toString());
+                    defer(id, () -> step.accept(attempt + 1));
+                } else {
+                    unknownCounter.increment();
+                    log.warn("Acquirer outcome for transaction {} still unknown after {} attempts, leaving it to recovery",
+                            id, attempt + 1);
+                }
+                return;
+            }
+            Runnable apply = () -> continuation.accept(Boolean.TRUE.equals(approved));
+            if (!sagaExecutor.tryExecute(id, apply)) {
+                defer(id, apply);
+            }
+        });
+    }
+
+    // Runs the task on the payment's lane after deferMs; if the lane is still full, recovery re-drives the step
+    private void defer(long id, Runnable task) {
+        resilienceScheduler.schedule(() -> {
+            if (!sagaExecutor.tryExecute(id, task)) {
+                droppedCounter.increment();
+                log.warn("Saga lane for transaction {} is full, leaving the step to recovery", id);
+            }
+        }, deferMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void transition(PaymentEvent event, PaymentState from, PaymentState to, PaymentEventType nextType) {
+        if (!from.canTransitionTo(to)) {
+            throw new IllegalStateException("Illegal payment transition " + from + " -> " + to);
+        }
+        Boolean applied = transactionTemplate.execute(status -> {
+            if (transactionRepository.transitionStatus(event.getTransactionId(), from.status(), to.status()) == 0) {
+                return false; // already moved on (redelivered or concurrent event)
+            }
+            PaymentEvent next = event.next(nextType, to.status().name());
+            switch (nextType) {
+                case PAYMENT_AUTHORIZED -> kafkaSagaProducerService.sendSagaEvent(next);
+                case COMPENSATION_REQUESTED -> kafkaCompensationProducerService.sendCompensationEvent(next);
+                default -> kafkaProducerService.sendTransactionEvent(next);
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(applied)) {
+            stateChanged(event.getTransactionId(), to);
+        }
+    }
+
+    // Records a transition applied on this node; only final states are ever read back from the index
+    void stateChanged(Long transactionId, PaymentState state) {
+        if (!state.status().isFinal()) {
+            stateIndex.invalidate(transactionId);
+            return;
+        }
+        PaymentStatus previous = stateIndex.get(transactionId);
+        stateIndex.put(transactionId, new PaymentStatus(previous != null ? previous.userId() : null, state));
+    }
+
+    public record PaymentStatus(Long userId, PaymentState state) {
+    }
+}
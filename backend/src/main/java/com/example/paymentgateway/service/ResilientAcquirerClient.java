@@ -0,0 +1,76 @@
+package com.example.paymentgateway.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Guards the acquirer with the "acquirer" circuit breaker, semaphore bulkhead and time limiter.
+ * Calls rejected by the breaker or bulkhead fail immediately with CallNotPermittedException /
+ * BulkheadFullException, which callers treat as "try again later" rather than as a decline.
+ */
+@Primary
+@Component
+public class ResilientAcquirerClient implements AcquirerClient {
+    @Autowired
+    @Qualifier("simulatedAcquirer")
+    private AcquirerClient delegate;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    @Autowired
+    private BulkheadRegistry bulkheadRegistry;
+    @Autowired
+    private TimeLimiterRegistry timeLimiterRegistry;
+    @Autowired
+    private ScheduledExecutorService resilienceScheduler;
+
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private TimeLimiter timeLimiter;
+
+    @PostConstruct
+    void init() {
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("acquirer");
+        bulkhead = bulkheadRegistry.bulkhead("acquirer");
+        timeLimiter = timeLimiterRegistry.timeLimiter("acquirer");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> authorize(long transactionId, long amountMinor, String idempotencyKey) {
+        return guarded(() -> delegate.authorize(transactionId, amountMinor, idempotencyKey));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> capture(long transactionId, long amountMinor, String idempotencyKey) {
+        return guarded(() -> delegate.capture(transactionId, amountMinor, idempotencyKey));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> voidAuthorization(long transactionId, long amountMinor, String idempotencyKey) {
+        return guarded(() -> delegate.voidAuthorization(transactionId, amountMinor, idempotencyKey));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> refund(long transactionId, long amountMinor, String idempotencyKey) {
+        return guarded(() -> delegate.refund(transactionId, amountMinor, idempotencyKey));
+    }
+
+    // Breaker outermost so acquirer timeouts count against it (bulkhead rejections are ignored by its config)
+    private CompletableFuture<Boolean> guarded(Supplier<CompletableFuture<Boolean>> call) {
+        return circuitBreaker.executeCompletionStage(() ->
+                timeLimiter.executeCompletionStage(resilienceScheduler, () ->
+                        bulkhead.executeCompletionStage(call::get))).toCompletableFuture();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acquirer stand-in: answers after a configurable latency with a configurable decline rate.
+ * Responses are scheduled on a timer rather than sleeping a thread, so thousands of calls
+ * can be in flight at once. Outcomes are remembered per idempotency key, so a repeated call
+ * answers the same way the first one did.
+ */
+@Component
+public class SimulatedAcquirer implements AcquirerClient {
+    @Value("${acquirer.simulated.latency-ms:50}")
+    private long latencyMs;
+    @Value("${acquirer.simulated.decline-rate:0.05}")
+    private double declineRate;
+    @Value("${acquirer.simulated.idempotency-ttl-ms:86400000}")
+    private long idempotencyTtlMs;
+
+    private ScheduledExecutorService timer;
+    private ExpiringCache<String, Boolean> outcomes;
+
+    @PostConstruct
+    void init() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simulated-acquirer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        outcomes = new ExpiringCache<>(1_000_000, idempotencyTtlMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> authorize(long transactionId, long amountMinor, String idempotencyKey) {
+        return respond(outcomes.computeIfAbsent(idempotencyKey, key -> ThreadLocalRandom.current().nextDouble() >= declineRate));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> capture(long transactionId, long amountMinor, String idempotencyKey) {
+        return respond(outcomes.computeIfAbsent(idempotencyKey, key -> ThreadLocalRandom.current().nextDouble() >= declineRate));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> voidAuthorization(long transactionId, long amountMinor, String idempotencyKey) {
+        return respond(true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> refund(long transactionId, long amountMinor, String idempotencyKey) {
+        return respond(true);
+    }
+
+    private CompletableFuture<Boolean> respond(boolean approved) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        timer.schedule(() -> response.complete(approved), latencyMs, TimeUnit.MILLISECONDS);
+        return response;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.TransactionCursor;
+import com.example.paymentgateway.model.TransactionFilter;
+import com.example.paymentgateway.model.TransactionStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams transaction exports in constant memory: rows are read through a read-only
+ * StatelessSession over a forward-only server-side cursor (no persistence context, no entities)
+ * and written as they arrive. Exports per tenant are capped so one tenant cannot hold every
+ * database connection.
+ */
+@Service
+public class TransactionExportService {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+    @Value("${export.checkpoint-interval:10000}")
+    private int checkpointInterval;
+    @Value("${export.max-concurrent-per-tenant:2}")
+    private int maxConcurrentPerTenant;
+    @Value("${export.timeout-ms:3600000}")
+    private long timeoutMs;
+
+    private final Map<String, Semaphore> tenantPermits = new ConcurrentHashMap<>();
+
+    // Async timeout for one export request; other async requests keep the container default
+    public long getTimeoutMs() { return timeoutMs; }
+
+    public boolean tryAcquire(String tenant) {
+        return tenantPermits.computeIfAbsent(tenant, t -> new Semaphore(maxConcurrentPerTenant)).tryAcquire();
+    }
+
+    public void release(String tenant) {
+        Semaphore permits = tenantPermits.get(tenant);
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    public void export(TransactionFilter filter, TransactionCursor after, TransactionExportWriter.Format format,
+                       boolean gzip, OutputStream target) throws IOException {
+        OutputStream stream = gzip ? new GZIPOutputStream(target, WRITE_BUFFER_SIZE) : target;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        TransactionExportWriter exportWriter = new TransactionExportWriter(writer, format);
+        exportWriter.writeHeader();
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            // A transaction (autocommit off) is what makes the PostgreSQL driver honour the fetch size
+            session.beginTransaction();
+            try (ScrollableResults<Object[]> rows = buildQuery(session, filter, after).scroll(ScrollMode.FORWARD_ONLY)) {
+                long count = 0;
+                long lastId = 0;
+                LocalDateTime lastTimestamp = null;
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    lastId = (Long) row[0];
+                    lastTimestamp = (LocalDateTime) row[1];
+                    exportWriter.writeRow(lastId, lastTimestamp, (Long) row[2], (Currency) row[3], ((TransactionStatus) row[4]).name(),
+                            (String) row[5], (String) row[6], (String) row[7]);
+                    if (++count % checkpointInterval == 0) {
+                        exportWriter.writeCheckpoint(new TransactionCursor(lastTimestamp, lastId).encode());
+                    }
+                }
+                if (lastTimestamp != null && count % checkpointInterval != 0) {
+                    exportWriter.writeCheckpoint(new TransactionCursor(lastTimestamp, lastId).encode());
+                }
+            } finally {
+                session.getTransaction().rollback(); // read-only, nothing to commit
+            }
+        }
+        exportWriter.flush();
+        if (stream instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+    }
+
+    private Query<Object[]> buildQuery(StatelessSession session, TransactionFilter filter, TransactionCursor after) {
+        StringBuilder hql = new StringBuilder(
+                "select t.id, t.timestamp, t.amountMinor, t.currency, t.status, t.merchantId, t.bankId, t.reference from Transaction t where 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (filter.getUserId() != null) {
+            hql.append(" and t.user.id = :userId");
+            params.put("userId", filter.getUserId());
+        }
+        if (filter.getMerchantId() != null) {
+            hql.append(" and t.merchantId = :merchantId");
+            params.put("merchantId", filter.getMerchantId());
+        }
+        if (filter.getBankId() != null) {
+            hql.append(" and t.bankId = :bankId");
+            params.put("bankId", filter.getBankId());
+        }
+        if (filter.getStatus() != null) {
+            hql.append(" and t.status = :status");
+            params.put("status", filter.getStatus());
+        }
+        if (filter.getFrom() != null) {
+            hql.append(" and t.timestamp >= :from");
+            params.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            hql.append(" and t.timestamp < :to");
+            params.put("to", filter.getTo());
+        }
+        if (after != null) {
+            hql.append(" and (t.timestamp < :afterTimestamp or (t.timestamp = :afterTimestamp and t.id < :afterId))");
+            params.put("afterTimestamp", after.getTimestamp());
+            params.put("afterId", after.getId());
+        }
+        hql.append(" order by t.timestamp desc, t.id desc");
+
+        Query<Object[]> query = session.createQuery(hql.toString(), Object[].class);
+        params.forEach(query::setParameter);
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        return query;
+    }
+}
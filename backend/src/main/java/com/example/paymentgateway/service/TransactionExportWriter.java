@@ -0,0 +1,151 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.Money;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.Currency;
+
+/**
+ * Formats exported transaction rows as CSV or NDJSON straight into a buffered Writer.
+ * Fields are written one by one, so no per-row String or object graph is built; amounts are
+ * formatted straight from minor units.
+ * Every few thousand rows (and at the end) a checkpoint record carries the cursor token
+ * a client can pass back to resume an interrupted export.
+ */
+public class TransactionExportWriter {
+    public enum Format { CSV, NDJSON }
+
+    private static final String CSV_HEADER = "id,timestamp,amount,currency,status,merchant_id,bank_id,reference\n";
+
+    private final Writer out;
+    private final Format format;
+
+    public TransactionExportWriter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    public void writeHeader() throws IOException {
+        if (format == Format.CSV) {
+            out.write(CSV_HEADER);
+        }
+    }
+
+    // A null amount or currency (rows not yet converted to minor units) is written as an empty field / null
+    public void writeRow(long id, LocalDateTime timestamp, Long amountMinor, Currency currency, String status,
+                         String merchantId, String bankId, String reference) throws IOException {
+        if (format == Format.CSV) {
+            out.write(Long.toString(id));
+            out.write(',');
+            out.write(timestamp.toString());
+            out.write(',');
+            if (amountMinor != null && currency != null) {
+                Money.appendDecimal(amountMinor, currency.getDefaultFractionDigits(), out);
+            }
+            out.write(',');
+            if (currency != null) {
+                out.write(currency.getCurrencyCode());
+            }
+            out.write(',');
+            writeCsvField(status);
+            out.write(',');
+            writeCsvField(merchantId);
+            out.write(',');
+            writeCsvField(bankId);
+            out.write(',');
+            writeCsvField(reference);
+            out.write('\n');
+        } else {
+            out.write("{\"id\":");
+            out.write(Long.toString(id));
+            out.write(",\"timestamp\":\"");
+            out.write(timestamp.toString());
+            out.write("\",\"amount\":");
+            if (amountMinor != null && currency != null) {
+                Money.appendDecimal(amountMinor, currency.getDefaultFractionDigits(), out);
+            } else {
+                out.write("null");
+            }
+            out.write(",\"currency\":");
+            writeJsonString(currency != null ? currency.getCurrencyCode() : null);
+            out.write(",\"status\":");
+            writeJsonString(status);
+            out.write(",\"merchantId\":");
+            writeJsonString(merchantId);
+            out.write(",\"bankId\":");
+            writeJsonString(bankId);
+            out.write(",\"reference\":");
+            writeJsonString(reference);
+            out.write("}\n");
+        }
+    }
+
+    // CSV: "#cursor,<token>" line; NDJSON: {"cursor":"<token>"} record
+    public void writeCheckpoint(String cursorToken) throws IOException {
+        if (format == Format.CSV) {
+            out.write("#cursor,");
+            out.write(cursorToken);
+            out.write('\n');
+        } else {
+            out.write("{\"cursor\":\"");
+            out.write(cursorToken);
+            out.write("\"}\n");
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeCsvField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private void writeJsonString(String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.User;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous entry point for transaction creation, run on the "transactionIntake" thread-pool
+ * bulkhead instead of servlet threads, behind the "database" circuit breaker and time limiter.
+ * The returned future completes only after TransactionService.createTransaction has committed,
+ * so a completed future always refers to a durable transaction whose outbox events are stored.
+ * A timed-out future does not roll the insert back; clients retry with the same reference.
+ */
+@Service
+public class TransactionIntakeService {
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private ThreadPoolBulkheadRegistry threadPoolBulkheadRegistry;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    @Autowired
+    private TimeLimiterRegistry timeLimiterRegistry;
+    @Autowired
+    private ScheduledExecutorService resilienceScheduler;
+
+    private ThreadPoolBulkhead bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private TimeLimiter timeLimiter;
+
+    @PostConstruct
+    void init() {
+        bulkhead = threadPoolBulkheadRegistry.bulkhead("transactionIntake");
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("database");
+        timeLimiter = timeLimiterRegistry.timeLimiter("database");
+    }
+
+    // Fails fast with BulkheadFullException / CallNotPermittedException when saturated or the database is failing
+    public CompletableFuture<Transaction> submit(User user, Transaction transaction) {
+        return submit(() -> transactionService.createTransaction(user, transaction));
+    }
+
+    // Payment of a payment link; the link's use commits or rolls back with the transaction
+    public CompletableFuture<Transaction> submitLinkPayment(User payer, Transaction transaction, String code) {
+        return submit(() -> transactionService.createLinkPayment(payer, transaction, code));
+    }
+
+    private CompletableFuture<Transaction> submit(Supplier<Transaction> create) {
+        return circuitBreaker.executeCompletionStage(() ->
+                timeLimiter.executeCompletionStage(resilienceScheduler, () -> bulkhead.executeSupplier(create)))
+                .toCompletableFuture();
+    }
+}
@@ -5,21 +5,40 @@ package com.example.paymentgateway.service;
 import com.example.paymentgateway.kafka.KafkaCompensationProducerService;
 import com.example.paymentgateway.kafka.KafkaSagaProducerService;
 import com.example.paymentgateway.kafka.KafkaProducerService;
+import com.example.paymentgateway.kafka.PaymentEvent;
+import com.example.paymentgateway.kafka.PaymentEventType;
+import com.example.paymentgateway.model.Money;
+import com.example.paymentgateway.model.PaymentLink;
 import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionCursor;
+import com.example.paymentgateway.model.TransactionFilter;
+import com.example.paymentgateway.model.TransactionPage;
 import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.PaymentLinkRepository;
 import com.example.paymentgateway.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.scheduling.annotation.Async;
 import java.time.LocalDateTime;
+import java.util.Currency;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
+    private static final int STREAM_FETCH_SIZE = 500;
+
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PaymentLinkRepository paymentLinkRepository;
+
     @Autowired
     private KafkaProducerService kafkaProducerService;
     @Autowired
@@ -27,52 +46,119 @@ public class TransactionService {
     @Autowired
     private KafkaCompensationProducerService kafkaCompensationProducerService;
 
+    // Applied when a request does not name a currency
+    @Value("${payment.default-currency:USD}")
+    private Currency defaultCurrency;
+
+    // Commits on return; asynchronous callers go through TransactionIntakeService
     @Transactional
-    @Async
     public Transaction createTransaction(User user, Transaction transaction) {
+        return create(user, transaction, null);
+    }
+
+    /**
+     * Pays a payment link: amount, currency and merchant come from the link, not the payer.
+     * The link's use is taken in the same database transaction as the insert, so a rollback
+     * gives it back and a commit keeps it even if the caller has stopped waiting.
+     */
+    @Transactional
+    public Transaction createLinkPayment(User payer, Transaction transaction, String code) {
+        return create(payer, transaction, code);
+    }
+
+    private Transaction create(User user, Transaction transaction, String linkCode) {
         // Idempotency: check for existing transaction by reference (if provided)
-        if (transaction.getReference() != null && !transaction.getReference().isEmpty()) {
-            List<Transaction> existing = transactionRepository.findByUserId(user.getId());
-            for (Transaction t : existing) {
-                if (transaction.getReference().equals(t.getReference())) {
-                    return t; // Idempotent: return existing transaction
-                }
+        boolean idempotent = transaction.getReference() != null && !transaction.getReference().isEmpty();
+        if (idempotent) {
+            Transaction existing = idempotencyService.claim(user.getId(), transaction.getReference());
+            if (existing != null) {
+                return existing; // Idempotent: return existing transaction
             }
         }
         // Business rule: check user enabled
         if (!user.isEnabled()) {
             throw new IllegalArgumentException("User account is disabled");
         }
-        // Business rule: check positive amount
-        if (transaction.getAmount() == null || transaction.getAmount().signum() <= 0) {
+        PaymentLink link = linkCode != null ? redeem(linkCode) : null;
+        if (link != null) {
+            transaction.setAmount(link.getAmount());
+            transaction.setCurrency(link.getCurrency());
+            transaction.setPaymentLink(link);
+        }
+        // Business rule: positive amount, exactly representable in the currency's minor units
+        Money amount = toMoney(transaction);
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Transaction amount must be positive");
         }
+        transaction.setMoney(amount);
         transaction.setUser(user);
-        transaction.setMerchantId(user.getMerchantId());
+        transaction.setMerchantId(link != null ? link.getMerchantId() : user.getMerchantId());
         transaction.setBankId(user.getBankId());
         transaction.setTimestamp(LocalDateTime.now());
-        transaction.setStatus("PENDING");
+        transaction.markPending();
         // Simulate async processing for long-running transactions (e.g., external payment gateway call)
         // In a real system, this would enqueue a message or call an async workflow
         Transaction saved = transactionRepository.save(transaction);
-        // Publish event to Kafka for distributed saga/orchestration
-        kafkaProducerService.sendTransactionEvent("Transaction created: " + saved.getId());
+        if (idempotent) {
+            idempotencyService.remember(user.getId(), saved.getReference(), saved);
+        }
+        // Events go to the outbox in this transaction and are published to Kafka after commit
+        kafkaProducerService.sendTransactionEvent(PaymentEvent.of(PaymentEventType.TRANSACTION_CREATED, saved));
         // Publish saga event for distributed transaction orchestration
-        kafkaSagaProducerService.sendSagaEvent("Saga start for transaction: " + saved.getId());
+        kafkaSagaProducerService.sendSagaEvent(PaymentEvent.of(PaymentEventType.SAGA_STARTED, saved));
         // Example: if transaction fails, send compensation event
         if (saved.isFailed()) {
-            kafkaCompensationProducerService.sendCompensationEvent("Compensate transaction: " + saved.getId());
+            kafkaCompensationProducerService.sendCompensationEvent(PaymentEvent.of(PaymentEventType.COMPENSATION_REQUESTED, saved));
         }
         return saved;
     }
 
-    public List<Transaction> getUserTransactions(User user) {
-        if (user.getMerchantId() != null) {
-            return transactionRepository.findByUserIdAndMerchantId(user.getId(), user.getMerchantId());
-        } else if (user.getBankId() != null) {
-            return transactionRepository.findByUserIdAndBankId(user.getId(), user.getBankId());
-        } else {
-            return transactionRepository.findByUserId(user.getId());
+    // Takes one use of the link; expiry, activity and the usage limit are checked by the same UPDATE
+    private PaymentLink redeem(String code) {
+        if (paymentLinkRepository.redeem(code, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("Payment link is not payable");
+        }
+        return paymentLinkRepository.findByCode(code)
+                .orElseThrow(() -> new IllegalArgumentException("Payment link is not payable"));
+    }
+
+    private Money toMoney(Transaction transaction) {
+        if (transaction.getAmount() == null) {
+            throw new IllegalArgumentException("Transaction amount must be positive");
+        }
+        Currency currency = transaction.getCurrency() != null ? transaction.getCurrency() : defaultCurrency;
+        return Money.of(transaction.getAmount(), currency);
+    }
+
+    // Keyset page of the user's history (newest first); cursor is the token from the previous page
+    @Transactional(readOnly = true)
+    public TransactionPage getUserTransactionsPage(User user, TransactionFilter filter, String cursor, int limit) {
+        scopeToUser(user, filter);
+        TransactionCursor after = cursor != null && !cursor.isEmpty() ? TransactionCursor.decode(cursor) : null;
+        // Fetch one extra row to know whether another page exists without a COUNT query
+        List<Transaction> rows = transactionRepository.findPage(filter, after, limit + 1);
+        if (rows.size() <= limit) {
+            return new TransactionPage(rows, null);
+        }
+        List<Transaction> items = rows.subList(0, limit);
+        return new TransactionPage(items, TransactionCursor.after(items.get(limit - 1)).encode());
+    }
+
+    // Hands every matching row to the consumer straight off a JDBC cursor, without building a list
+    @Transactional(readOnly = true)
+    public void streamUserTransactions(User user, TransactionFilter filter, Consumer<Transaction> consumer) {
+        scopeToUser(user, filter);
+        try (Stream<Transaction> rows = transactionRepository.streamAll(filter, STREAM_FETCH_SIZE)) {
+            rows.forEach(consumer);
+        }
+    }
+
+    // History is what the user paid, whichever merchant was paid (link payments carry the link's merchant);
+    // amount bounds without a currency mean the default one
+    private void scopeToUser(User user, TransactionFilter filter) {
+        filter.setUserId(user.getId());
+        if (filter.getCurrency() == null && (filter.getMinAmount() != null || filter.getMaxAmount() != null)) {
+            filter.setCurrency(defaultCurrency);
         }
     }
 }
@@ -0,0 +1,73 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.util.ExpiringCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Two-tier cache of users by username: a small per-node near cache in front of the shared
+ * UserCacheStore, in front of the database. Writes evict through both tiers and the store
+ * broadcasts the eviction to every node's near cache. The near cache's short TTL bounds
+ * staleness should an invalidation be missed. Cached users are detached and must be treated
+ * as read-only; updates go through UserService, which evicts them.
+ */
+@Component
+public class UserCache {
+    @Autowired
+    private UserCacheStore remote;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user.cache.near.max-size:10000}")
+    private int nearMaxSize;
+    @Value("${user.cache.near.ttl-ms:60000}")
+    private long nearTtlMs;
+
+    private ExpiringCache<String, User> near;
+    private Counter nearHits;
+    private Counter remoteHits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        near = new ExpiringCache<>(nearMaxSize, nearTtlMs);
+        remote.subscribe(near::invalidate);
+        nearHits = Counter.builder("user.cache.requests").tag("tier", "near").register(meterRegistry);
+        remoteHits = Counter.builder("user.cache.requests").tag("tier", "remote").register(meterRegistry);
+        misses = Counter.builder("user.cache.requests").tag("tier", "database").register(meterRegistry);
+    }
+
+    public Optional<User> get(String username, Function<String, Optional<User>> loader) {
+        User user = near.get(username);
+        if (user != null) {
+            nearHits.increment();
+            return Optional.of(user);
+        }
+        user = remote.get(username);
+        if (user != null) {
+            remoteHits.increment();
+            near.put(username, user);
+            return Optional.of(user);
+        }
+        misses.increment();
+        Optional<User> loaded = loader.apply(username);
+        loaded.ifPresent(u -> {
+            remote.put(username, u);
+            near.put(username, u);
+        });
+        return loaded;
+    }
+
+    public void evict(String username) {
+        near.invalidate(username);
+        remote.evict(username);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.User;
+
+import java.util.function.Consumer;
+
+/**
+ * Shared (remote) tier of the user cache, seen by every gateway node.
+ * LocalUserCacheStore is an in-process stand-in; a networked implementation (e.g. backed by Redis
+ * with pub/sub for invalidations) can be registered as a @Primary bean.
+ */
+public interface UserCacheStore {
+    User get(String username);
+
+    void put(String username, User user);
+
+    // Removes the entry and notifies every subscribed node so near caches drop it too
+    void evict(String username);
+
+    void subscribe(Consumer<String> invalidationListener);
+}
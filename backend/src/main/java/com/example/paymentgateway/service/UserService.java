@@ -2,11 +2,16 @@ package com.example.paymentgateway.service;
 
 import com.example.paymentgateway.model.User;
 import com.example.paymentgateway.repository.UserRepository;
+import com.example.paymentgateway.security.PasswordHashingService;
+import com.example.paymentgateway.security.RefreshTokenService;
+import com.example.paymentgateway.security.VerifiedTokenCache;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class UserService {
@@ -14,19 +19,66 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
-    public User registerUser(User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        // Assign default role if not set
-        if (user.getRoles() == null || user.getRoles().isEmpty()) {
-            user.getRoles().add("ROLE_CUSTOMER");
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    // Hashing runs on the password hashing pool; the user is saved once the hash is ready
+    public CompletableFuture<User> registerUser(User user) {
+        return passwordHashingService.encode(user.getPassword()).thenApply(hash -> {
+            user.setPassword(hash);
+            // Self-registered accounts are always plain customers; other roles are granted server-side
+            user.setRoles(new HashSet<>(Set.of("ROLE_CUSTOMER")));
+            User saved = userRepository.save(user);
+            // save() merges when the user already exists, so drop any cached copy on every node
+            userCache.evict(saved.getUsername());
+            return saved;
+        });
+    }
+
+    public User disableUser(User user) {
+        user.disable();
+        User saved = userRepository.save(user);
+        userCache.evict(saved.getUsername());
+        // Tokens already verified for this user must stop authenticating immediately
+        verifiedTokenCache.invalidateUser(saved.getUsername());
+        refreshTokenService.revokeUser(saved.getUsername());
+        return saved;
+    }
+
+    public User enableUser(User user) {
+        user.enable();
+        User saved = userRepository.save(user);
+        userCache.evict(saved.getUsername());
+        return saved;
+    }
+
+    // Administrative entry points for the two above
+    public User disableUser(User admin, Long userId) {
+        return disableUser(findForAdmin(admin, userId));
+    }
+
+    public User enableUser(User admin, Long userId) {
+        return enableUser(findForAdmin(admin, userId));
+    }
+
+    private User findForAdmin(User admin, Long userId) {
+        if (!admin.isAdmin()) {
+            throw new IllegalArgumentException("Only administrators can enable or disable users");
         }
-        return userRepository.save(user);
+        return userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
     }
 
+    // Served from the user cache; the returned user is shared, so changes go through this service
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userCache.get(username, userRepository::findByUsername);
     }
 
     public boolean existsByUsername(String username) {
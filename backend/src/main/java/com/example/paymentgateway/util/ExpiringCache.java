@@ -0,0 +1,122 @@
+package com.example.paymentgateway.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Small bounded in-memory cache with a per-entry time-to-live.
+ * Reads are lock-free; once the cache grows past its bound, expired entries are
+ * swept first and then the oldest-inserted entries are dropped.
+ */
+public class ExpiringCache<K, V> {
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlMillis;
+
+    public ExpiringCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    // Allows callers to cap an entry's lifetime below the default, e.g. at a token's own expiry
+    public void put(K key, V value, long entryTtlMillis) {
+        long ttl = Math.min(entryTtlMillis, ttlMillis);
+        if (ttl <= 0) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttl));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateIf(BiPredicate<K, V> predicate) {
+        entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().value));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private synchronized void evict() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(e -> e.expiresAt <= now);
+        int overflow = entries.size() - maxSize;
+        if (overflow <= 0) {
+            return;
+        }
+        // Still over the bound: drop the entries closest to expiry (i.e. inserted earliest),
+        // plus some headroom so the sort is amortized over many puts
+        int toRemove = overflow + Math.max(1, maxSize / 10);
+        long[] expiries = entries.values().stream()
+                .mapToLong(e -> e.expiresAt)
+                .sorted()
+                .limit(toRemove)
+                .toArray();
+        long cutoff = expiries[expiries.length - 1];
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext() && toRemove > 0) {
+            if (it.next().expiresAt <= cutoff) {
+                it.remove();
+                toRemove--;
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
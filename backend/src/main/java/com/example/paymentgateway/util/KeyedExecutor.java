@@ -0,0 +1,103 @@
+package com.example.paymentgateway.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a fixed set of single-threaded lanes chosen by key hash: tasks with the same key
+ * run one at a time in submission order, different keys run in parallel. Lane queues are bounded
+ * and a full lane blocks the submitter, which pushes back on whoever is producing the work.
+ * A lane submitting to itself while full runs the task inline instead of deadlocking.
+ * Threads that must never block (timers, I/O callbacks) use tryExecute, which refuses instead.
+ */
+public class KeyedExecutor {
+    private final ThreadPoolExecutor[] lanes;
+    private final ThreadLocal<ThreadPoolExecutor> currentLane = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> nonBlocking = new ThreadLocal<>();
+
+    public KeyedExecutor(String name, int laneCount, int laneCapacity) {
+        if (laneCount <= 0 || laneCapacity <= 0) {
+            throw new IllegalArgumentException("laneCount and laneCapacity must be positive");
+        }
+        lanes = new ThreadPoolExecutor[laneCount];
+        RejectedExecutionHandler blockOnFull = (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException(name + " is shut down");
+            }
+            if (currentLane.get() == executor) {
+                task.run();
+                return;
+            }
+            if (nonBlocking.get() != null) {
+                throw new RejectedExecutionException(name + " lane is full");
+            }
+            try {
+                executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+            }
+        };
+        AtomicInteger threadIndex = new AtomicInteger();
+        for (int i = 0; i < laneCount; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(laneCapacity);
+            int lane = i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue, r -> {
+                Thread thread = new Thread(() -> {
+                    currentLane.set(lanes[lane]);
+                    r.run();
+                }, name + "-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, blockOnFull);
+        }
+    }
+
+    public void execute(long key, Runnable task) {
+        laneFor(key).execute(task);
+    }
+
+    // Queues the task unless its lane is full or shut down; never blocks the caller
+    public boolean tryExecute(long key, Runnable task) {
+        nonBlocking.set(Boolean.TRUE);
+        try {
+            laneFor(key).execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        } finally {
+            nonBlocking.remove();
+        }
+    }
+
+    public int queuedTasks() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private ThreadPoolExecutor laneFor(long key) {
+        return lanes[(int) Math.floorMod(mix(key), (long) lanes.length)];
+    }
+
+    // Spread sequential ids across lanes
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
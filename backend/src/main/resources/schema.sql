@@ -0,0 +1,69 @@
+-- Indexes JPA annotations cannot express. Runs after Hibernate's schema update
+-- (spring.jpa.defer-datasource-initialization), so every statement must be idempotent.
+
+-- Usable (active and verified) payment methods per user, for checkout
+CREATE INDEX IF NOT EXISTS idx_payment_method_usable ON payment_methods (user_id) WHERE active AND verified;
+
+-- Entities that moved from IDENTITY to pooled sequences: start each sequence past the ids the
+-- identity column already handed out. GREATEST keeps a sequence that is already further along
+-- where it is, so re-running (or running against a live sequence) never moves one backwards.
+SELECT setval('transactions_seq', GREATEST((SELECT last_value FROM transactions_seq), (SELECT COALESCE(MAX(id), 0) + 100 FROM transactions)));
+SELECT setval('users_seq', GREATEST((SELECT last_value FROM users_seq), (SELECT COALESCE(MAX(id), 0) + 100 FROM users)));
+SELECT setval('payment_methods_seq', GREATEST((SELECT last_value FROM payment_methods_seq), (SELECT COALESCE(MAX(id), 0) + 100 FROM payment_methods)));
+SELECT setval('notifications_seq', GREATEST((SELECT last_value FROM notifications_seq), (SELECT COALESCE(MAX(id), 0) + 100 FROM notifications)));
+SELECT setval('audit_logs_seq', GREATEST((SELECT last_value FROM audit_logs_seq), (SELECT COALESCE(MAX(id), 0) + 100 FROM audit_logs)));
+
+-- Transactions created before amounts moved to minor units: derive them from the decimal column.
+-- Those rows predate the currency column, so they carry no currency of their own and are taken as
+-- USD (cents), the only currency the gateway handled then. A deployment that recorded other
+-- currencies must set currency and amount_minor on those rows itself before upgrading.
+-- Only touches rows not yet converted.
+UPDATE transactions SET amount_minor = ROUND(amount * 100), currency = COALESCE(currency, 'USD')
+    WHERE amount_minor IS NULL;
+
+-- Decimal amount columns widened from numeric(18,2) so 3- and 4-decimal currencies are stored exactly
+-- (Hibernate's update never alters a column type). ALTER ... TYPE takes an ACCESS EXCLUSIVE lock even
+-- when the type is unchanged, so it only runs while a column still has another type. The DO body is a
+-- plain string literal: the script runner splits on semicolons outside quotes and knows nothing of $$.
+DO 'BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema()
+            AND table_name = ''transactions'' AND column_name = ''amount''
+            AND (numeric_precision, numeric_scale) IS DISTINCT FROM (19, 4)) THEN
+        ALTER TABLE transactions ALTER COLUMN amount TYPE numeric(19,4);
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema()
+            AND table_name = ''payment_links'' AND column_name = ''amount''
+            AND (numeric_precision, numeric_scale) IS DISTINCT FROM (19, 4)) THEN
+        ALTER TABLE payment_links ALTER COLUMN amount TYPE numeric(19,4);
+    END IF;
+END';
+
+-- Status moved from names to one-character TransactionStatus codes: convert rows written before,
+-- then start the optimistic-lock version of existing rows at 0. Both only touch unconverted rows.
+UPDATE transactions SET status = CASE UPPER(status)
+        WHEN 'PENDING' THEN 'P' WHEN 'AUTHORIZED' THEN 'A' WHEN 'SUCCESS' THEN 'S'
+        WHEN 'FAILED' THEN 'F' WHEN 'COMPENSATED' THEN 'C' WHEN 'REFUNDED' THEN 'R' ELSE status END
+    WHERE LENGTH(status) > 1;
+UPDATE transactions SET version = 0 WHERE version IS NULL;
+
+-- Stuck-payment sweeps ("PENDING/AUTHORIZED older than N minutes"): only in-flight rows are indexed,
+-- so the index stays small however much history accumulates
+CREATE INDEX IF NOT EXISTS idx_transaction_in_flight ON transactions (status, timestamp) WHERE status IN ('P', 'A');
+
+-- Notification history and stream resume both use idx_notification_username_stream_seq
+DROP INDEX IF EXISTS idx_notification_username_id;
+
+-- Outbox relay: pending rows in insertion order, and the per-key head lookup of lockPendingBatch.
+-- They replace idx_outbox_pending (published_at, id), which no query used
+DROP INDEX IF EXISTS idx_outbox_pending;
+CREATE INDEX IF NOT EXISTS idx_outbox_pending_seq ON outbox_events (relay_seq) WHERE published_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_pending_key ON outbox_events (topic, event_key, relay_seq) WHERE published_at IS NULL;
+
+-- Dashboard rollups became per currency; rows written before were all USD. The old primary key
+-- (scope, granularity, bucket_start) is replaced by a unique index that includes the currency,
+-- which is what addDelta's ON CONFLICT targets. Each statement is a no-op once applied.
+ALTER TABLE dashboard_stats_rollups ADD COLUMN IF NOT EXISTS currency varchar(3);
+UPDATE dashboard_stats_rollups SET currency = 'USD' WHERE currency IS NULL;
+ALTER TABLE dashboard_stats_rollups ALTER COLUMN currency SET NOT NULL;
+ALTER TABLE dashboard_stats_rollups DROP CONSTRAINT IF EXISTS dashboard_stats_rollups_pkey;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_dashboard_rollup_bucket ON dashboard_stats_rollups (scope, currency, granularity, bucket_start);
@@ -0,0 +1,94 @@
+package com.example.paymentgateway.filter;
+
+import com.example.paymentgateway.config.RateLimitProperties;
+import com.example.paymentgateway.filter.KeyedRateLimiter.KeyClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedRateLimiterTest {
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final KeyedRateLimiter limiter = new KeyedRateLimiter();
+
+    @BeforeEach
+    void setUp() {
+        properties.setTiers(new HashMap<>(Map.of("default", tier(2), "premium", tier(5))));
+        properties.setTenantTiers(new HashMap<>(Map.of("acme", "premium")));
+        ReflectionTestUtils.setField(limiter, "properties", properties);
+        ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void eachKeyDrainsOnlyItsOwnBucket() {
+        init();
+        assertThat(consume(KeyClass.SUBJECT, "alice", 3)).isEqualTo(2);
+        assertThat(consume(KeyClass.SUBJECT, "bob", 3)).isEqualTo(2);
+        // Same key in another class is another bucket
+        assertThat(consume(KeyClass.IP, "alice", 3)).isEqualTo(2);
+    }
+
+    @Test
+    void keysBeyondTheBoundShareOneOverflowBucket() {
+        properties.setMaxKeysPerClass(1);
+        init();
+        assertThat(consume(KeyClass.IP, "10.0.0.1", 1)).isEqualTo(1);
+
+        assertThat(consume(KeyClass.IP, "10.0.0.2", 1)).isEqualTo(1);
+        assertThat(consume(KeyClass.IP, "10.0.0.3", 2)).isEqualTo(1); // the overflow bucket holds 2 in all
+        assertThat(buckets(KeyClass.IP)).containsOnlyKeys("10.0.0.1");
+    }
+
+    @Test
+    void sweepDropsIdleBuckets() throws InterruptedException {
+        properties.setIdleEvictionMs(1);
+        init();
+        assertThat(consume(KeyClass.SUBJECT, "alice", 3)).isEqualTo(2);
+        Thread.sleep(5);
+
+        limiter.evictIdle();
+
+        assertThat(buckets(KeyClass.SUBJECT)).isEmpty();
+        assertThat(consume(KeyClass.SUBJECT, "alice", 1)).isEqualTo(1); // a fresh bucket
+    }
+
+    @Test
+    void tenantTiersApplyOnlyToTenantKeys() {
+        init();
+        assertThat(consume(KeyClass.MERCHANT, "acme", 10)).isEqualTo(5);
+        // A username equal to a tenant id does not get that tenant's tier
+        assertThat(consume(KeyClass.SUBJECT, "acme", 10)).isEqualTo(2);
+    }
+
+    private void init() {
+        ReflectionTestUtils.invokeMethod(limiter, "init");
+    }
+
+    private int consume(KeyClass keyClass, String key, int attempts) {
+        int allowed = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (limiter.tryConsume(keyClass, key)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> buckets(KeyClass keyClass) {
+        Map<KeyClass, Map<String, ?>> buckets = (Map<KeyClass, Map<String, ?>>) ReflectionTestUtils.getField(limiter, "buckets");
+        return buckets.get(keyClass);
+    }
+
+    private static RateLimitProperties.Tier tier(long capacity) {
+        RateLimitProperties.Tier tier = new RateLimitProperties.Tier();
+        tier.setCapacity(capacity);
+        tier.setPeriodSeconds(3600);
+        return tier;
+    }
+}
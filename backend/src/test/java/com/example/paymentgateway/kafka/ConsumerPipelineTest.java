@@ -0,0 +1,177 @@
+package com.example.paymentgateway.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Pipeline behaviour against MockConsumer, standing in for a broker
+class ConsumerPipelineTest {
+    private static final String TOPIC = "transactions";
+    private ConsumerPipeline<String, String> pipeline;
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void commitsOnlyUpToTheOldestUnfinishedRecord() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        pipeline = new ConsumerPipeline<>(TOPIC, 4, 100, record -> {
+            if (record.offset() == 1) {
+                await(release);
+            }
+            done.countDown();
+        }, new FixedBackOff(0, 0), (record, e) -> { }, new SimpleMeterRegistry());
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        List<ConsumerRecord<String, String>> batch = new ArrayList<>();
+        for (int offset = 0; offset < 5; offset++) {
+            batch.add(new ConsumerRecord<>(TOPIC, 0, offset, "key-" + offset, "v"));
+        }
+
+        pipeline.submit(batch);
+        waitUntil(() -> done.getCount() == 1);
+        // Offsets 0 and 2..4 are done but 1 is not: only offset 0 may be committed
+        assertThat(pipeline.committable(Set.of(partition))).containsEntry(partition, new OffsetAndMetadata(1));
+
+        release.countDown();
+        Map<TopicPartition, OffsetAndMetadata> next = new HashMap<>();
+        waitUntil(() -> {
+            next.putAll(pipeline.committable(Set.of(partition)));
+            return !next.isEmpty();
+        });
+        assertThat(next).containsEntry(partition, new OffsetAndMetadata(5));
+    }
+
+    @Test
+    void retriesFailingRecordThenDeadLettersBeforeCommittingPastIt() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<Long> deadLettered = new CopyOnWriteArrayList<>();
+        AtomicBoolean dltAvailable = new AtomicBoolean(false);
+        pipeline = new ConsumerPipeline<>(TOPIC, 2, 100, record -> {
+            if (record.offset() == 1) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("database down");
+            }
+        }, new FixedBackOff(1, 2), (record, e) -> {
+            if (!dltAvailable.get()) {
+                throw new IllegalStateException("dlt unavailable");
+            }
+            deadLettered.add(record.offset());
+        }, new SimpleMeterRegistry());
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        List<ConsumerRecord<String, String>> batch = new ArrayList<>();
+        for (int offset = 0; offset < 3; offset++) {
+            batch.add(new ConsumerRecord<>(TOPIC, 0, offset, "key-" + offset, "v"));
+        }
+
+        pipeline.submit(batch);
+        Map<TopicPartition, OffsetAndMetadata> first = new HashMap<>();
+        waitUntil(() -> {
+            first.putAll(pipeline.committable(Set.of(partition)));
+            return attempts.get() == 3 && !first.isEmpty();
+        });
+        // Initial attempt plus two retries failed and the DLT is down: the watermark stays on offset 1
+        assertThat(first).containsEntry(partition, new OffsetAndMetadata(1));
+        assertThat(pipeline.committable(Set.of(partition))).isEmpty();
+
+        dltAvailable.set(true);
+        Map<TopicPartition, OffsetAndMetadata> next = new HashMap<>();
+        waitUntil(() -> {
+            next.putAll(pipeline.committable(Set.of(partition)));
+            return !next.isEmpty();
+        });
+        assertThat(deadLettered).containsExactly(1L);
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(next).containsEntry(partition, new OffsetAndMetadata(3));
+    }
+
+    @Test
+    void processesEveryRecordInKeyOrderAndCommitsTheEnd() throws Exception {
+        int partitions = 4;
+        int perPartition = 25_000;
+        Map<String, AtomicLong> lastOffsetPerKey = new ConcurrentHashMap<>();
+        AtomicLong outOfOrder = new AtomicLong();
+        AtomicLong processed = new AtomicLong();
+        pipeline = new ConsumerPipeline<>(TOPIC, 8, 1000, record -> {
+            String key = record.partition() + ":" + record.key();
+            long previous = lastOffsetPerKey.computeIfAbsent(key, k -> new AtomicLong(-1)).getAndSet(record.offset());
+            if (previous > record.offset()) {
+                outOfOrder.incrementAndGet();
+            }
+            processed.incrementAndGet();
+        }, new FixedBackOff(0, 0), (record, e) -> { }, new SimpleMeterRegistry());
+
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        List<TopicPartition> assigned = new ArrayList<>();
+        Map<TopicPartition, Long> beginning = new HashMap<>();
+        for (int p = 0; p < partitions; p++) {
+            TopicPartition partition = new TopicPartition(TOPIC, p);
+            assigned.add(partition);
+            beginning.put(partition, 0L);
+        }
+        consumer.assign(assigned);
+        consumer.updateBeginningOffsets(beginning);
+
+        long start = System.nanoTime();
+        for (int from = 0; from < perPartition; from += 500) {
+            List<ConsumerRecord<String, String>> batch = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                for (int offset = from; offset < from + 500; offset++) {
+                    batch.add(new ConsumerRecord<>(TOPIC, p, offset, "key-" + (offset % 64), "v"));
+                }
+            }
+            pipeline.submit(batch);
+            pipeline.commit(consumer);
+        }
+        waitUntil(() -> processed.get() == (long) partitions * perPartition);
+        pipeline.commit(consumer);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double recordsPerSecond = processed.get() / seconds;
+
+        assertThat(outOfOrder.get()).isZero();
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.copyOf(assigned));
+        for (TopicPartition partition : assigned) {
+            assertThat(committed.get(partition).offset()).isEqualTo(perPartition);
+        }
+        // Deliberately loose floor: catches a serialized or stalled pipeline, not machine speed
+        assertThat(recordsPerSecond).isGreaterThan(10_000);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.paymentgateway.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventDeduplicatorTest {
+    private final EventDeduplicator deduplicator = new EventDeduplicator();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(deduplicator, "maxSize", 100);
+        ReflectionTestUtils.setField(deduplicator, "ttlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(deduplicator, "init");
+    }
+
+    @Test
+    void redeliveryIsDuplicateOnlyAfterHandlerCompleted() {
+        ConsumerRecord<String, String> first = record("transactions", 7L);
+
+        // Handler failed: the redelivery must be processed again
+        assertThat(deduplicator.isDuplicate(first)).isFalse();
+        assertThat(deduplicator.isDuplicate(record("transactions", 7L))).isFalse();
+
+        deduplicator.markProcessed(first);
+        assertThat(deduplicator.isDuplicate(record("transactions", 7L))).isTrue();
+        assertThat(deduplicator.isDuplicate(record("saga-events", 7L))).isFalse();
+    }
+
+    @Test
+    void recordsWithoutOutboxIdAreNeverDuplicates() {
+        ConsumerRecord<String, String> plain = new ConsumerRecord<>("transactions", 0, 0L, "k", "v");
+        deduplicator.markProcessed(plain);
+
+        assertThat(deduplicator.isDuplicate(plain)).isFalse();
+    }
+
+    private static ConsumerRecord<String, String> record(String topic, long outboxId) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(topic, 0, outboxId, "k", "v");
+        record.headers().add(OutboxRelay.OUTBOX_ID_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(outboxId).array());
+        return record;
+    }
+}
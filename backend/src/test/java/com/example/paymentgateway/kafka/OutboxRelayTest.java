@@ -0,0 +1,146 @@
+package com.example.paymentgateway.kafka;
+
+import com.example.paymentgateway.model.OutboxEvent;
+import com.example.paymentgateway.repository.OutboxEventRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Relay behaviour against in-memory stand-ins for the outbox table and the Kafka producer
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 500);
+        ReflectionTestUtils.setField(outboxRelay, "sendTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(outboxRelay, "leaseMs", 60_000L);
+        ReflectionTestUtils.setField(outboxRelay, "transactionTemplate", new TransactionTemplate(transactionManager));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(outboxRelay, "kafkaCircuitBreaker", CircuitBreaker.of("kafka",
+                CircuitBreakerConfig.custom().slidingWindowSize(2).minimumNumberOfCalls(2).build()));
+    }
+
+    @Test
+    void publishesBatchKeyedByTransactionIdAndMarksItPublished() {
+        when(outboxEventRepository.lockPendingBatch(anyInt(), any(LocalDateTime.class))).thenReturn(List.of(event(1L, "42"), event(2L, "43")));
+        when(kafkaTemplate.send(anyRecord())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertThat(relayed).isEqualTo(2);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ProducerRecord<String, byte[]>> records = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(records.capture());
+        ProducerRecord<String, byte[]> first = records.getAllValues().get(0);
+        assertThat(first.key()).isEqualTo("42");
+        assertThat(ByteBuffer.wrap(first.headers().lastHeader(OutboxRelay.OUTBOX_ID_HEADER).value()).getLong()).isEqualTo(1L);
+        verify(kafkaTemplate).flush();
+        verify(outboxEventRepository).claim(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void waitsForAcksOutsideTheClaimTransaction() {
+        when(outboxEventRepository.lockPendingBatch(anyInt(), any(LocalDateTime.class))).thenReturn(List.of(event(1L, "42")));
+        when(kafkaTemplate.send(anyRecord())).thenAnswer(invocation -> {
+            // The claim has been committed before anything is sent
+            verify(transactionManager).commit(any());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertThat(outboxRelay.relayBatch()).isEqualTo(1);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void leavesUnacknowledgedEventsPendingForRetry() {
+        when(outboxEventRepository.lockPendingBatch(anyInt(), any(LocalDateTime.class))).thenReturn(List.of(event(1L, "42"), event(2L, "43")));
+        CompletableFuture<SendResult<String, byte[]>> failed = CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(failed);
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertThat(relayed).isZero();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markPublished(ids.capture(), any(LocalDateTime.class));
+        assertThat(ids.getValue()).containsExactly(1L);
+        verify(outboxEventRepository).releaseClaims(List.of(2L));
+    }
+
+    @Test
+    void stopsRelayingWhileBrokerIsFailing() {
+        when(outboxEventRepository.lockPendingBatch(anyInt(), any(LocalDateTime.class))).thenReturn(List.of(event(1L, "42")));
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        outboxRelay.relayBatch();
+        outboxRelay.relayBatch();
+        // Breaker is open now: the next round leaves the outbox untouched
+        assertThat(outboxRelay.relayBatch()).isZero();
+
+        verify(outboxEventRepository, times(2)).lockPendingBatch(anyInt(), any(LocalDateTime.class));
+        verify(kafkaTemplate, times(2)).send(anyRecord());
+    }
+
+    @Test
+    void doesNothingWhenOutboxIsEmpty() {
+        when(outboxEventRepository.lockPendingBatch(anyInt(), any(LocalDateTime.class))).thenReturn(List.of());
+
+        assertThat(outboxRelay.relayBatch()).isZero();
+        verify(kafkaTemplate, never()).send(anyRecord());
+    }
+
+    private static ProducerRecord<String, byte[]> anyRecord() {
+        return any();
+    }
+
+    private static OutboxEvent event(Long id, String key) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setTopic("transactions");
+        event.setEventKey(key);
+        event.setPayload(("Transaction created: " + key).getBytes(StandardCharsets.UTF_8));
+        return event;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.paymentgateway.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentEventCodecTest {
+    private static final PaymentEvent EVENT = new PaymentEvent(PaymentEventType.TRANSACTION_CREATED, 42L,
+            "merchant-7f3a", 12_550L, "PENDING", 1_700_000_000_000L, 9L, "JPY");
+
+    @Test
+    void roundTripsEveryField() {
+        PaymentEvent decoded = PaymentEventCodec.decode(ByteBuffer.wrap(PaymentEventCodec.encode(EVENT)));
+
+        assertThat(decoded.getType()).isEqualTo(PaymentEventType.TRANSACTION_CREATED);
+        assertThat(decoded.getTransactionId()).isEqualTo(42L);
+        assertThat(decoded.getTenant()).isEqualTo("merchant-7f3a");
+        assertThat(decoded.getAmountMinor()).isEqualTo(12_550L);
+        assertThat(decoded.getStatus()).isEqualTo("PENDING");
+        assertThat(decoded.getTimestampMillis()).isEqualTo(1_700_000_000_000L);
+        assertThat(decoded.getUserId()).isEqualTo(9L);
+        assertThat(decoded.getCurrency()).isEqualTo("JPY");
+    }
+
+    @Test
+    void readsV1PayloadsWithoutUserIdOrCurrency() {
+        // A v1 producer wrote the same body minus the trailing userId and currency
+        ByteBuffer v1 = olderVersion(1, 8 + 3);
+
+        PaymentEvent decoded = PaymentEventCodec.decode(v1);
+
+        assertThat(decoded.getTenant()).isEqualTo("merchant-7f3a");
+        assertThat(decoded.getUserId()).isZero();
+        assertThat(decoded.getCurrency()).isNull();
+        assertThat(v1.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void readsV2PayloadsWithoutCurrency() {
+        ByteBuffer v2 = olderVersion(2, 3);
+
+        PaymentEvent decoded = PaymentEventCodec.decode(v2);
+
+        assertThat(decoded.getUserId()).isEqualTo(9L);
+        assertThat(decoded.getCurrency()).isNull();
+        assertThat(v2.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void nullTenantAndCurrencySurviveRoundTrip() {
+        PaymentEvent event = new PaymentEvent(PaymentEventType.SAGA_STARTED, 1L, null, 1L, "SUCCESS", 0L);
+        PaymentEvent decoded = PaymentEventCodec.decode(ByteBuffer.wrap(PaymentEventCodec.encode(event)));
+        assertThat(decoded.getTenant()).isNull();
+        assertThat(decoded.getCurrency()).isNull();
+    }
+
+    @Test
+    void skipsFieldsAppendedByNewerVersions() {
+        byte[] current = PaymentEventCodec.encode(EVENT);
+        // Simulate a v4 producer that appended a 4-byte field to the body
+        ByteBuffer v4 = ByteBuffer.allocate(current.length + 4 + 1);
+        v4.put(current);
+        v4.put(1, (byte) 4);
+        v4.putShort(2, (short) ((current.length - 4) + 4));
+        v4.putInt(0xCAFEBABE);
+        v4.put((byte) 0x7F); // start of the next record in the same buffer
+        v4.flip();
+
+        PaymentEvent decoded = PaymentEventCodec.decode(v4);
+
+        assertThat(decoded.getTransactionId()).isEqualTo(42L);
+        assertThat(decoded.getCurrency()).isEqualTo("JPY");
+        assertThat(v4.get()).isEqualTo((byte) 0x7F);
+    }
+
+    @Test
+    void rejectsForeignPayloads() {
+        byte[] legacy = "Transaction created: 42".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> PaymentEventCodec.decode(ByteBuffer.wrap(legacy)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsBodiesThatDoNotMatchTheirDeclaredLength() {
+        byte[] current = PaymentEventCodec.encode(EVENT);
+        // Declared body longer than the bytes that arrived
+        ByteBuffer truncated = ByteBuffer.wrap(current, 0, current.length - 5);
+        assertThatThrownBy(() -> PaymentEventCodec.decode(truncated))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Truncated payment event");
+
+        // Declared body too short for the version's fields; the bytes after it must not be read
+        ByteBuffer shortBody = ByteBuffer.wrap(current.clone());
+        shortBody.putShort(2, (short) 20);
+        assertThatThrownBy(() -> PaymentEventCodec.decode(shortBody)).isInstanceOf(IllegalArgumentException.class);
+
+        // Tenant length pointing past the end of the body
+        ByteBuffer tenantOverrun = ByteBuffer.wrap(current.clone());
+        tenantOverrun.putShort(4 + 26, (short) 500);
+        assertThatThrownBy(() -> PaymentEventCodec.decode(tenantOverrun))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("tenant");
+    }
+
+    @Test
+    void binaryEnvelopeIsSmallerThanEquivalentText() {
+        byte[] binary = PaymentEventCodec.encode(EVENT);
+        String text = "Transaction created: 42 tenant=merchant-7f3a amount=12550 JPY status=PENDING timestamp=2023-11-14T22:13:20Z user=9";
+
+        assertThat(binary).hasSize(4 + 39 + "merchant-7f3a".length());
+        assertThat(binary.length).isLessThan(text.getBytes(StandardCharsets.UTF_8).length / 2);
+    }
+
+    // The current encoding with the fields appended after the given version cut off the end of the body
+    private static ByteBuffer olderVersion(int version, int appendedBytes) {
+        byte[] current = PaymentEventCodec.encode(EVENT);
+        ByteBuffer older = ByteBuffer.allocate(current.length - appendedBytes);
+        older.put(current, 0, current.length - appendedBytes);
+        older.put(1, (byte) version);
+        older.putShort(2, (short) (current.length - appendedBytes - 4));
+        older.flip();
+        return older;
+    }
+}
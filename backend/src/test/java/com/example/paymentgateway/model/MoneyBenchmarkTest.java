@@ -0,0 +1,118 @@
+package com.example.paymentgateway.model;
+
+import com.example.paymentgateway.util.LogUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * long minor units vs the BigDecimal representation they replaced, for summing and for JSON output.
+ * Summing asserts the speed-up; serialization asserts identical output and only reports timings,
+ * as it is dominated by the Writer rather than by number formatting.
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class MoneyBenchmarkTest {
+    private static final Logger log = LogUtil.getLogger(MoneyBenchmarkTest.class);
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ROUNDS = 5; // the first rounds warm up the JIT; the best round is reported
+
+    @Test
+    void sumsTenMillionAmountsFasterThanBigDecimal() {
+        long[] minor = amounts(10_000_000);
+        long longNanos = Long.MAX_VALUE;
+        long decimalNanos = Long.MAX_VALUE;
+        Money longTotal = null;
+        BigDecimal decimalTotal = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            Money.Totals totals = new Money.Totals();
+            for (long amount : minor) {
+                totals.add(amount, USD);
+            }
+            longTotal = totals.get(USD);
+            longNanos = Math.min(longNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            BigDecimal sum = BigDecimal.ZERO;
+            for (long amount : minor) {
+                sum = sum.add(BigDecimal.valueOf(amount, 2));
+            }
+            decimalTotal = sum;
+            decimalNanos = Math.min(decimalNanos, System.nanoTime() - start);
+        }
+        log.info("Summing 10M amounts: long minor units {} ms, BigDecimal {} ms",
+                longNanos / 1_000_000, decimalNanos / 1_000_000);
+
+        assertThat(longTotal.toDecimal()).isEqualByComparingTo(decimalTotal);
+        assertThat(longNanos).isLessThan(decimalNanos);
+    }
+
+    @Test
+    void serializesOneMillionAmountsToTheSameJsonAsBigDecimal() throws IOException {
+        long[] minor = amounts(1_000_000);
+        JsonFactory json = new JsonFactory();
+        long moneyNanos = Long.MAX_VALUE;
+        long decimalNanos = Long.MAX_VALUE;
+        String moneyJson = null;
+        String decimalJson = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            // Money: decimal text straight from minor units, as TransactionExportWriter writes it
+            long start = System.nanoTime();
+            StringWriter moneyOut = new StringWriter(minor.length * 8);
+            try (Writer buffered = new BufferedWriter(moneyOut, BUFFER_SIZE)) {
+                writeMinorUnits(minor, buffered);
+            }
+            moneyJson = moneyOut.toString();
+            moneyNanos = Math.min(moneyNanos, System.nanoTime() - start);
+
+            // Current representation: one BigDecimal per amount through Jackson
+            start = System.nanoTime();
+            StringWriter decimalOut = new StringWriter(minor.length * 8);
+            try (JsonGenerator generator = json.createGenerator(decimalOut)) {
+                generator.writeStartArray();
+                for (long amount : minor) {
+                    generator.writeNumber(BigDecimal.valueOf(amount, 2));
+                }
+                generator.writeEndArray();
+            }
+            decimalJson = decimalOut.toString();
+            decimalNanos = Math.min(decimalNanos, System.nanoTime() - start);
+        }
+        log.info("Serializing 1M amounts to JSON: long minor units {} ms, BigDecimal {} ms",
+                moneyNanos / 1_000_000, decimalNanos / 1_000_000);
+
+        assertThat(moneyJson).isEqualTo(decimalJson);
+    }
+
+    private static void writeMinorUnits(long[] minor, Writer out) throws IOException {
+        out.write('[');
+        for (int i = 0; i < minor.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Money.appendDecimal(minor[i], 2, out);
+        }
+        out.write(']');
+    }
+
+    private static long[] amounts(int n) {
+        long[] minor = new long[n];
+        for (int i = 0; i < n; i++) {
+            minor[i] = 1 + (i * 7919L) % 100_000;
+        }
+        return minor;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.paymentgateway.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+    private static final Currency BHD = Currency.getInstance("BHD");
+
+    @Test
+    void convertsDecimalsExactlyPerCurrency() {
+        assertThat(Money.of(new BigDecimal("12.5"), USD).getMinorUnits()).isEqualTo(1250);
+        assertThat(Money.of(new BigDecimal("500"), JPY).getMinorUnits()).isEqualTo(500);
+        assertThat(Money.of(new BigDecimal("1.005"), BHD).getMinorUnits()).isEqualTo(1005);
+
+        assertThatThrownBy(() -> Money.of(new BigDecimal("10.005"), USD)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1.5"), JPY)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1e20"), USD)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(Money.of(new BigDecimal("10.005"), USD, RoundingMode.HALF_EVEN).getMinorUnits()).isEqualTo(1000);
+    }
+
+    @Test
+    void roundsLikeBigDecimal() {
+        long[] dividends = {-25, -15, -11, -10, -9, -5, 0, 5, 9, 10, 11, 15, 25};
+        for (RoundingMode mode : RoundingMode.values()) {
+            if (mode == RoundingMode.UNNECESSARY) {
+                continue;
+            }
+            for (long dividend : dividends) {
+                long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.TEN, 0, mode).longValueExact();
+                assertThat(Money.divide(dividend, 10, mode)).as("%d/10 %s", dividend, mode).isEqualTo(expected);
+            }
+        }
+        assertThat(Money.ofMinor(1999, USD).percentage(290, RoundingMode.HALF_UP).getMinorUnits()).isEqualTo(58);
+    }
+
+    @Test
+    void arithmeticIsCheckedForCurrencyAndOverflow() {
+        Money ten = Money.ofMinor(1000, USD);
+        assertThat(ten.plus(Money.ofMinor(5, USD)).minus(Money.ofMinor(10, USD))).isEqualTo(Money.ofMinor(995, USD));
+
+        assertThatThrownBy(() -> ten.plus(Money.ofMinor(5, JPY))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE, USD).plus(Money.ofMinor(1, USD)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofMinor(1, Currency.getInstance("XXX"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void allocatesWithoutLosingMinorUnits() {
+        Money[] shares = Money.ofMinor(1000, USD).allocate(3);
+        assertThat(Arrays.stream(shares).mapToLong(Money::getMinorUnits)).containsExactly(334L, 333L, 333L);
+
+        Money[] refunds = Money.ofMinor(-7, USD).allocate(3);
+        assertThat(Arrays.stream(refunds).mapToLong(Money::getMinorUnits)).containsExactly(-3L, -2L, -2L);
+    }
+
+    @Test
+    void formatsPlainDecimals() throws IOException {
+        assertThat(format(1250, USD)).isEqualTo("12.50");
+        assertThat(format(-5, USD)).isEqualTo("-0.05");
+        assertThat(format(0, USD)).isEqualTo("0.00");
+        assertThat(format(500, JPY)).isEqualTo("500");
+        assertThat(format(1005, BHD)).isEqualTo("1.005");
+        assertThat(format(Long.MIN_VALUE, USD)).isEqualTo(BigDecimal.valueOf(Long.MIN_VALUE, 2).toPlainString());
+        assertThat(Money.ofMinor(1250, USD).toDecimal()).isEqualByComparingTo("12.50");
+    }
+
+    @Test
+    void totalsKeepCurrenciesApart() {
+        Money.Totals totals = new Money.Totals()
+                .add(Money.ofMinor(1250, USD))
+                .add(500, JPY)
+                .add(Money.ofMinor(750, USD));
+
+        assertThat(totals.get(USD)).isEqualTo(Money.ofMinor(2000, USD));
+        assertThat(totals.get(JPY)).isEqualTo(Money.ofMinor(500, JPY));
+        assertThat(totals.get(BHD).isZero()).isTrue();
+        assertThat(totals.currencies()).containsExactlyInAnyOrder(USD, JPY);
+    }
+
+    private static String format(long minorUnits, Currency currency) throws IOException {
+        StringBuilder out = new StringBuilder();
+        Money.appendDecimal(minorUnits, currency.getDefaultFractionDigits(), out);
+        return out.toString();
+    }
+}
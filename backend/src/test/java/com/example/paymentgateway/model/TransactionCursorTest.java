@@ -0,0 +1,41 @@
+package com.example.paymentgateway.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionCursorTest {
+
+    @Test
+    void roundTripsTimestampAndId() {
+        // Whole minutes print without seconds and sub-second parts with them; both must come back exactly
+        for (LocalDateTime timestamp : new LocalDateTime[] {
+                LocalDateTime.of(2024, 1, 2, 3, 4),
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_000)}) {
+            TransactionCursor decoded = TransactionCursor.decode(new TransactionCursor(timestamp, 42L).encode());
+            assertThat(decoded.getTimestamp()).isEqualTo(timestamp);
+            assertThat(decoded.getId()).isEqualTo(42L);
+        }
+        assertThat(new TransactionCursor(LocalDateTime.of(2024, 1, 2, 3, 4), 42L).encode()).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        for (String token : new String[] {"", "not base64!", raw("no separator"), raw("2024-13-01T00:00|5"),
+                raw("2024-01-01T00:00|abc"), raw("|5")}) {
+            assertThatThrownBy(() -> TransactionCursor.decode(token))
+                    .as(token)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor");
+        }
+    }
+
+    private static String raw(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.paymentgateway.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionStatusTest {
+
+    @Test
+    void entityEnforcesTransitionTable() {
+        Transaction transaction = new Transaction();
+        transaction.markPending();
+        transaction.transitionTo(TransactionStatus.AUTHORIZED);
+        transaction.markSuccess();
+        assertThatThrownBy(() -> transaction.transitionTo(TransactionStatus.REFUNDED)) // only through the claim
+                .isInstanceOf(IllegalStateException.class);
+        transaction.transitionTo(TransactionStatus.REFUND_PENDING);
+        transaction.transitionTo(TransactionStatus.REFUNDED);
+
+        assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.REFUNDED);
+        assertThat(transaction.getStatus().isFinal()).isTrue();
+        assertThatThrownBy(transaction::markPending).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(transaction::markFailed).isInstanceOf(IllegalStateException.class);
+        assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.REFUNDED);
+    }
+
+    @Test
+    void sagaStatesFollowTheSameTable() {
+        for (PaymentState from : PaymentState.values()) {
+            assertThat(PaymentState.fromStatus(from.status())).isEqualTo(from);
+            for (PaymentState to : PaymentState.values()) {
+                assertThat(from.canTransitionTo(to)).isEqualTo(from.status().canTransitionTo(to.status()));
+            }
+        }
+        assertThat(PaymentState.FAILED.canTransitionTo(PaymentState.COMPENSATED)).isFalse();
+        assertThat(PaymentState.FAILED.canTransitionTo(PaymentState.COMPENSATING)).isTrue();
+        assertThat(PaymentState.COMPENSATING.canTransitionTo(PaymentState.COMPENSATED)).isTrue();
+        assertThat(PaymentState.COMPENSATING.canTransitionTo(PaymentState.FAILED)).isTrue();
+        assertThat(PaymentState.REFUND_PENDING.canTransitionTo(PaymentState.CAPTURED)).isTrue();
+        assertThat(PaymentState.COMPENSATED.canTransitionTo(PaymentState.INITIATED)).isFalse();
+    }
+
+    @Test
+    void codesAndNamesRoundTrip() {
+        TransactionStatusConverter converter = new TransactionStatusConverter();
+        for (TransactionStatus status : TransactionStatus.values()) {
+            assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(status))).isEqualTo(status);
+            assertThat(TransactionStatus.parse(status.name().toLowerCase())).isEqualTo(status);
+        }
+        assertThatThrownBy(() -> TransactionStatus.fromCode('X')).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TransactionStatus.parse("SETTLED")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.paymentgateway.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtBlacklistTest {
+
+    @Test
+    void sharedStoreSeesRevocationsFromOtherNodesImmediately() {
+        LocalRevocationStore store = new LocalRevocationStore() {
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        JwtBlacklist blacklist = blacklist(store);
+        TokenDigest digest = TokenDigest.of("header.payload.signature");
+
+        // Revoked by another node: never put into this node's filter
+        store.revoke(digest, System.currentTimeMillis() + 60_000);
+
+        assertThat(blacklist.isBlacklisted(digest)).isTrue();
+    }
+
+    @Test
+    void localStoreIsFrontedByTheBloomFilter() {
+        LocalRevocationStore store = new LocalRevocationStore();
+        TokenDigest digest = TokenDigest.of("header.payload.signature");
+        store.revoke(digest, System.currentTimeMillis() + 60_000);
+        JwtBlacklist blacklist = blacklist(store);
+
+        assertThat(blacklist.isBlacklisted(digest)).isTrue();
+        assertThat(blacklist.isBlacklisted(TokenDigest.of("other.token.value"))).isFalse();
+        assertThat(ReflectionTestUtils.getField(blacklist, "bloomFilter")).isNotNull();
+    }
+
+    private static JwtBlacklist blacklist(RevocationStore store) {
+        JwtBlacklist blacklist = new JwtBlacklist();
+        ReflectionTestUtils.setField(blacklist, "revocationStore", store);
+        ReflectionTestUtils.setField(blacklist, "bloomEnabled", true);
+        ReflectionTestUtils.setField(blacklist, "bloomExpectedInsertions", 1000L);
+        ReflectionTestUtils.setField(blacklist, "bloomFalsePositiveRate", 0.001);
+        ReflectionTestUtils.invokeMethod(blacklist, "init");
+        return blacklist;
+    }
+}
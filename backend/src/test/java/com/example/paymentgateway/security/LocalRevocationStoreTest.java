@@ -0,0 +1,38 @@
+package com.example.paymentgateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRevocationStoreTest {
+
+    @Test
+    void revokedTokenIsReportedUntilItExpires() {
+        LocalRevocationStore store = new LocalRevocationStore();
+        TokenDigest digest = TokenDigest.of("header.payload.signature");
+        store.revoke(digest, System.currentTimeMillis() + 60_000);
+        assertThat(store.isRevoked(digest)).isTrue();
+        assertThat(store.isRevoked(TokenDigest.of("other.token.value"))).isFalse();
+    }
+
+    @Test
+    void purgeDropsOnlyExpiredBuckets() {
+        LocalRevocationStore store = new LocalRevocationStore();
+        long now = System.currentTimeMillis();
+        TokenDigest expired = TokenDigest.of("expired");
+        TokenDigest live = TokenDigest.of("live");
+        store.revoke(expired, now - 5 * 60_000);
+        store.revoke(live, now + 5 * 60_000);
+
+        store.purgeExpired(now);
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.isRevoked(live)).isTrue();
+    }
+
+    @Test
+    void digestIsStableAndFixedWidth() {
+        assertThat(TokenDigest.of("abc")).isEqualTo(TokenDigest.of("abc"));
+        assertThat(TokenDigest.of("abc")).isNotEqualTo(TokenDigest.of("abd"));
+    }
+}
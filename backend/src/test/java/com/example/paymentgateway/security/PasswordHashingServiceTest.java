@@ -0,0 +1,165 @@
+package com.example.paymentgateway.security;
+
+import com.example.paymentgateway.config.SecurityConfig;
+import com.example.paymentgateway.exception.GlobalExceptionHandler;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.UserRepository;
+import com.example.paymentgateway.service.UserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Bounded hashing pool and re-encoding of outdated hashes on login, with the encoder from SecurityConfig
+@ExtendWith(MockitoExtension.class)
+class PasswordHashingServiceTest {
+    private static final int STRENGTH = 5; // low cost keeps the test fast; the rules do not depend on it
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserCache userCache;
+
+    private PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService = new CustomUserDetailsService();
+
+    @BeforeEach
+    void setUp() {
+        SecurityConfig securityConfig = new SecurityConfig();
+        ReflectionTestUtils.setField(securityConfig, "passwordEncoderId", "bcrypt");
+        ReflectionTestUtils.setField(securityConfig, "bcryptStrength", STRENGTH);
+        passwordEncoder = securityConfig.passwordEncoder();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userDetailsService, "userCache", userCache);
+    }
+
+    @Test
+    void fullQueueIsRejectedAndAnsweredWith503() throws Exception {
+        PasswordHashingService hashingService = new PasswordHashingService();
+        ReflectionTestUtils.setField(hashingService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(hashingService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hashingService, "threads", 1);
+        ReflectionTestUtils.setField(hashingService, "queueCapacity", 1);
+        ReflectionTestUtils.invokeMethod(hashingService, "init");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> busy = hashingService.submit("login", () -> {
+                running.countDown();
+                return await(release);
+            });
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<String> queued = hashingService.encode("queued");
+
+            RejectedExecutionException rejected = catchThrowableOfType(
+                    () -> hashingService.encode("rejected"), RejectedExecutionException.class);
+            assertThat(rejected).isNotNull();
+
+            ResponseEntity<?> response = new GlobalExceptionHandler().handleOverload(rejected);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+            release.countDown();
+            assertThat(busy.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(passwordEncoder.matches("queued", queued.get(5, TimeUnit.SECONDS))).isTrue();
+        } finally {
+            release.countDown();
+            ReflectionTestUtils.invokeMethod(hashingService, "shutdown");
+        }
+    }
+
+    @Test
+    void legacyUnprefixedHashIsReencodedOnLogin() {
+        User user = user(new BCryptPasswordEncoder(STRENGTH).encode("secret"));
+
+        login(user, "secret");
+
+        assertThat(user.getPassword()).startsWith("{bcrypt}");
+        assertThat(passwordEncoder.matches("secret", user.getPassword())).isTrue();
+        verify(userRepository).save(user);
+        verify(userCache).evict("alice");
+    }
+
+    @Test
+    void hashFromAWeakerSettingIsReencodedOnLogin() {
+        String weak = "{bcrypt}" + new BCryptPasswordEncoder(STRENGTH - 1).encode("secret");
+        User user = user(weak);
+
+        login(user, "secret");
+
+        assertThat(user.getPassword()).startsWith("{bcrypt}").isNotEqualTo(weak);
+        assertThat(passwordEncoder.upgradeEncoding(user.getPassword())).isFalse();
+        verify(userRepository).save(user);
+        verify(userCache).evict("alice");
+    }
+
+    @Test
+    void currentHashIsLeftAlone() {
+        String current = passwordEncoder.encode("secret");
+        User user = user(current);
+        when(userCache.get(eq("alice"), any())).thenReturn(Optional.of(user));
+
+        provider().authenticate(new UsernamePasswordAuthenticationToken("alice", "secret"));
+
+        assertThat(user.getPassword()).isEqualTo(current);
+        verify(userRepository, never()).save(any());
+    }
+
+    private void login(User user, String rawPassword) {
+        when(userCache.get(eq("alice"), any())).thenReturn(Optional.of(user));
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        assertThat(provider().authenticate(new UsernamePasswordAuthenticationToken("alice", rawPassword))
+                .isAuthenticated()).isTrue();
+    }
+
+    // Wired the way Spring Security wires the application's UserDetailsService and UserDetailsPasswordService
+    private DaoAuthenticationProvider provider() {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        return provider;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static User user(String passwordHash) {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setPassword(passwordHash);
+        user.setEnabled(true);
+        user.setRoles(Set.of("ROLE_CUSTOMER"));
+        return user;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.paymentgateway.security;
+
+import com.example.paymentgateway.model.RefreshToken;
+import com.example.paymentgateway.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Rotation and reuse detection against a mocked token store
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshTokenService, "refreshExpirationMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(refreshTokenService, "init");
+    }
+
+    @Test
+    void rotationConsumesTokenAndStaysInFamily() {
+        RefreshToken stored = token("alice", "family-1");
+        when(refreshTokenRepository.lockByTokenHash(RefreshTokenService.hash("presented"))).thenReturn(Optional.of(stored));
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("presented");
+
+        assertThat(rotation.username()).isEqualTo("alice");
+        assertThat(rotation.familyId()).isEqualTo("family-1");
+        assertThat(rotation.refreshToken()).isNotEqualTo("presented");
+        assertThat(stored.isUsed()).isTrue();
+        verify(refreshTokenRepository, never()).revokeFamily(anyString());
+    }
+
+    @Test
+    void reusingAConsumedTokenRevokesTheFamily() {
+        RefreshToken stored = token("alice", "family-1");
+        stored.setUsedAt(LocalDateTime.now().minusSeconds(5));
+        when(refreshTokenRepository.lockByTokenHash(RefreshTokenService.hash("stolen"))).thenReturn(Optional.of(stored));
+
+        assertThatThrownBy(() -> refreshTokenService.rotate("stolen")).isInstanceOf(IllegalArgumentException.class);
+        verify(refreshTokenRepository).revokeFamily("family-1");
+    }
+
+    @Test
+    void rejectsUnknownAndExpiredTokens() {
+        RefreshToken expired = token("bob", "family-2");
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        when(refreshTokenRepository.lockByTokenHash(RefreshTokenService.hash("expired"))).thenReturn(Optional.of(expired));
+        when(refreshTokenRepository.lockByTokenHash(RefreshTokenService.hash("unknown"))).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> refreshTokenService.rotate("expired")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> refreshTokenService.rotate("unknown")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(expired.isUsed()).isFalse();
+    }
+
+    private static RefreshToken token(String username, String familyId) {
+        RefreshToken token = new RefreshToken();
+        token.setUsername(username);
+        token.setFamilyId(familyId);
+        token.setExpiresAt(LocalDateTime.now().plusMinutes(10));
+        return token;
+    }
+}
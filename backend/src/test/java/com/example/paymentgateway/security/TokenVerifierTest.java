@@ -0,0 +1,86 @@
+package com.example.paymentgateway.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// One verification per token shared by both filters, and across requests via the digest-keyed cache
+@ExtendWith(MockitoExtension.class)
+class TokenVerifierTest {
+    @Mock
+    private JwtUtil jwtUtil;
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+    @Mock
+    private JwtBlacklist jwtBlacklist;
+    @Spy
+    private VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+    @InjectMocks
+    private TokenVerifier tokenVerifier;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 100);
+        ReflectionTestUtils.setField(verifiedTokenCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(verifiedTokenCache, "init");
+        ReflectionTestUtils.setField(tokenVerifier, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(tokenVerifier, "initMetrics");
+    }
+
+    @Test
+    void verifiesEachTokenOnceAcrossFiltersAndRequests() {
+        Claims claims = new DefaultClaims().setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000));
+        GatewayUserDetails alice = new GatewayUserDetails(1L, "alice", null, true, List.of(), "m1", null);
+        when(jwtUtil.parseClaims("a.b.c")).thenReturn(claims);
+        when(jwtUtil.principalFrom(claims)).thenReturn(alice);
+        when(userDetailsService.isEnabled("alice")).thenReturn(true);
+        when(jwtUtil.validateClaims(claims, alice)).thenReturn(true);
+
+        MockHttpServletRequest first = bearer("a.b.c");
+        assertThat(tokenVerifier.verifiedPrincipal(first)).isSameAs(alice); // rate limiter
+        assertThat(tokenVerifier.verifiedPrincipal(first)).isSameAs(alice); // authentication filter
+        assertThat(tokenVerifier.verifiedPrincipal(bearer("a.b.c"))).isSameAs(alice);
+
+        verify(jwtUtil, times(1)).parseClaims("a.b.c");
+        verify(verifiedTokenCache, times(2)).get(TokenDigest.of("a.b.c"));
+    }
+
+    @Test
+    void neverVerifiesRevokedOrMissingTokens() {
+        when(jwtBlacklist.isBlacklisted(TokenDigest.of("x.y.z"))).thenReturn(true);
+
+        MockHttpServletRequest revoked = bearer("x.y.z");
+        assertThat(tokenVerifier.verifiedPrincipal(revoked)).isNull();
+        assertThat(tokenVerifier.verifiedPrincipal(revoked)).isNull();
+        assertThat(tokenVerifier.verifiedPrincipal(new MockHttpServletRequest())).isNull();
+
+        verify(jwtBlacklist, times(1)).isBlacklisted(any(TokenDigest.class));
+        verify(jwtUtil, never()).parseClaims(any());
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
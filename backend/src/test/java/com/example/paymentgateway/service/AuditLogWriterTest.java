@@ -0,0 +1,146 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.AuditLog;
+import com.example.paymentgateway.repository.AuditLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Spill file format, replay of entries a previous run spilled, and the caller-runs transaction
+@ExtendWith(MockitoExtension.class)
+class AuditLogWriterTest {
+    private static final LocalDateTime AT = LocalDateTime.of(2024, 5, 1, 12, 30);
+
+    @Mock
+    private AuditLogRepository auditLogRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private AuditLogWriter writer;
+
+    @TempDir
+    Path dataDir;
+    private Path spillFile;
+
+    @BeforeEach
+    void setUp() {
+        spillFile = dataDir.resolve("audit/audit.spill");
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "queueCapacity", 16);
+        ReflectionTestUtils.setField(writer, "batchSize", 10);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", AuditLogWriter.OverflowPolicy.SPILL);
+        ReflectionTestUtils.setField(writer, "spillPath", spillFile.toString());
+    }
+
+    @Test
+    void spillsRejectedBatchAsTimestampUsernameActionRecords() throws Exception {
+        when(auditLogRepository.saveAll(any())).thenThrow(new IllegalStateException("database down"));
+
+        writer.start();
+        writer.submit(entry("alice", "LOGIN"));
+        writer.submit(entry("bob", "PAYMENT_CREATED"));
+        writer.stop();
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(spillFile))) {
+            assertThat(in.readLong()).isEqualTo(AT.toInstant(ZoneOffset.UTC).toEpochMilli());
+            assertThat(in.readUTF()).isEqualTo("alice");
+            assertThat(in.readUTF()).isEqualTo("LOGIN");
+            assertThat(in.readLong()).isEqualTo(AT.toInstant(ZoneOffset.UTC).toEpochMilli());
+            assertThat(in.readUTF()).isEqualTo("bob");
+            assertThat(in.readUTF()).isEqualTo("PAYMENT_CREATED");
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaysSpillLeftByPreviousRunOnStartup() throws Exception {
+        Files.createDirectories(spillFile.getParent());
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(spillFile))) {
+            out.writeLong(AT.toInstant(ZoneOffset.UTC).toEpochMilli());
+            out.writeUTF("carol");
+            out.writeUTF("REFUND");
+        }
+
+        writer.start();
+        writer.stop(); // nothing submitted: the replay must not wait for new traffic
+
+        ArgumentCaptor<List<AuditLog>> saved = ArgumentCaptor.forClass(List.class);
+        verify(auditLogRepository, atLeastOnce()).saveAll(saved.capture());
+        AuditLog replayed = saved.getValue().get(0);
+        assertThat(replayed.getUsername()).isEqualTo("carol");
+        assertThat(replayed.getAction()).isEqualTo("REFUND");
+        assertThat(replayed.getTimestamp()).isEqualTo(AT);
+        assertThat(spillFile).doesNotExist();
+    }
+
+    @Test
+    void callerRunsFlushUsesItsOwnTransaction() throws Exception {
+        ReflectionTestUtils.setField(writer, "queueCapacity", 2);
+        ReflectionTestUtils.setField(writer, "batchSize", 1);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", AuditLogWriter.OverflowPolicy.CALLER_RUNS);
+        CountDownLatch drainerFlushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> flushingThreads = new CopyOnWriteArrayList<>();
+        when(auditLogRepository.saveAll(any())).thenAnswer(invocation -> {
+            flushingThreads.add(Thread.currentThread().getName());
+            if (Thread.currentThread().getName().equals("audit-log-writer")) {
+                drainerFlushing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return List.of();
+        });
+
+        writer.start();
+        writer.submit(entry("alice", "LOGIN"));
+        assertThat(drainerFlushing.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 3; i++) {
+            writer.submit(entry("bob", "LOGIN")); // the third finds the buffer full and flushes here
+        }
+        release.countDown();
+        writer.stop();
+
+        assertThat(flushingThreads).contains(Thread.currentThread().getName());
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeastOnce()).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues()).extracting(TransactionDefinition::getPropagationBehavior)
+                .containsOnly(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private static AuditLog entry(String username, String action) {
+        AuditLog entry = new AuditLog();
+        entry.setUsername(username);
+        entry.setAction(action);
+        entry.setTimestamp(AT);
+        return entry;
+    }
+}
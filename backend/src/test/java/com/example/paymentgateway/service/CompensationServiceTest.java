@@ -0,0 +1,149 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.kafka.KafkaCompensationProducerService;
+import com.example.paymentgateway.kafka.KafkaProducerService;
+import com.example.paymentgateway.kafka.PaymentEvent;
+import com.example.paymentgateway.kafka.PaymentEventType;
+import com.example.paymentgateway.model.PaymentState;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionStatus;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Batch compensation/refund behaviour against mocked persistence, outbox and acquirer
+@ExtendWith(MockitoExtension.class)
+class CompensationServiceTest {
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private AcquirerClient acquirerClient;
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+    @Mock
+    private KafkaCompensationProducerService kafkaCompensationProducerService;
+    @Mock
+    private PaymentOrchestrator paymentOrchestrator;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private CompensationService compensationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(compensationService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(compensationService, "acquirerTimeoutMs", 1000L);
+        ReflectionTestUtils.invokeMethod(compensationService, "init");
+    }
+
+    @Test
+    void claimsBeforeCallingTheAcquirerAndSkipsAppliedOnes() {
+        // Transaction 2 was already compensated by an earlier delivery, so it cannot be claimed
+        when(transactionRepository.lockIdsInStatus(List.of(1L, 2L), "F")).thenReturn(List.of(1L));
+        when(acquirerClient.voidAuthorization(1L, 500L, "void:1")).thenReturn(CompletableFuture.completedFuture(true));
+        when(transactionRepository.lockIdsInStatus(List.of(1L), "V")).thenReturn(List.of(1L));
+
+        List<PaymentEvent> retry = compensationService.process(List.of(
+                event(PaymentEventType.COMPENSATION_REQUESTED, 1L),
+                event(PaymentEventType.COMPENSATION_REQUESTED, 1L),
+                event(PaymentEventType.COMPENSATION_REQUESTED, 2L)));
+
+        assertThat(retry).isEmpty();
+        verify(acquirerClient, never()).voidAuthorization(eq(2L), anyLong(), any());
+        InOrder order = inOrder(transactionRepository, acquirerClient);
+        order.verify(transactionRepository).transitionStatuses(List.of(1L), TransactionStatus.FAILED, TransactionStatus.COMPENSATING);
+        order.verify(acquirerClient).voidAuthorization(1L, 500L, "void:1");
+        order.verify(transactionRepository).transitionStatuses(List.of(1L), TransactionStatus.COMPENSATING, TransactionStatus.COMPENSATED);
+        ArgumentCaptor<PaymentEvent> published = ArgumentCaptor.forClass(PaymentEvent.class);
+        verify(kafkaProducerService).sendTransactionEvent(published.capture());
+        assertThat(published.getValue().getType()).isEqualTo(PaymentEventType.PAYMENT_COMPENSATED);
+        verify(paymentOrchestrator).stateChanged(1L, PaymentState.COMPENSATED);
+    }
+
+    @Test
+    void failedRefundKeepsItsClaimForTheRetry() {
+        when(transactionRepository.lockIdsInStatus(List.of(7L), "S")).thenReturn(List.of(7L));
+        when(acquirerClient.refund(7L, 500L, "refund:7")).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("acquirer down")));
+
+        PaymentEvent refund = event(PaymentEventType.REFUND_REQUESTED, 7L);
+        List<PaymentEvent> retry = compensationService.process(List.of(refund));
+
+        assertThat(retry).containsExactly(refund);
+        verify(transactionRepository).transitionStatuses(List.of(7L), TransactionStatus.SUCCESS, TransactionStatus.REFUND_PENDING);
+        verify(transactionRepository, never()).transitionStatuses(any(), eq(TransactionStatus.REFUND_PENDING), any());
+        verify(kafkaProducerService, never()).sendTransactionEvent(any());
+    }
+
+    @Test
+    void declinedRefundReleasesItsClaim() {
+        when(transactionRepository.lockIdsInStatus(List.of(7L), "S")).thenReturn(List.of(7L));
+        when(acquirerClient.refund(7L, 500L, "refund:7")).thenReturn(CompletableFuture.completedFuture(false));
+        when(transactionRepository.lockIdsInStatus(List.of(7L), "D")).thenReturn(List.of(7L));
+
+        PaymentEvent refund = event(PaymentEventType.REFUND_REQUESTED, 7L);
+        assertThat(compensationService.process(List.of(refund))).containsExactly(refund);
+
+        verify(transactionRepository).transitionStatuses(List.of(7L), TransactionStatus.REFUND_PENDING, TransactionStatus.SUCCESS);
+        verify(kafkaProducerService, never()).sendTransactionEvent(any());
+    }
+
+    @Test
+    void resumesAClaimLeftByAnInterruptedRunWithTheSameKey() {
+        when(transactionRepository.findIdsInStatus(List.of(7L), TransactionStatus.REFUND_PENDING)).thenReturn(List.of(7L));
+        when(transactionRepository.lockIdsInStatus(List.of(7L), "S")).thenReturn(List.of());
+        when(acquirerClient.refund(7L, 500L, "refund:7")).thenReturn(CompletableFuture.completedFuture(true));
+        when(transactionRepository.lockIdsInStatus(List.of(7L), "D")).thenReturn(List.of(7L));
+
+        assertThat(compensationService.process(List.of(event(PaymentEventType.REFUND_REQUESTED, 7L)))).isEmpty();
+
+        verify(transactionRepository).transitionStatuses(List.of(7L), TransactionStatus.REFUND_PENDING, TransactionStatus.REFUNDED);
+        verify(paymentOrchestrator).stateChanged(7L, PaymentState.REFUNDED);
+    }
+
+    @Test
+    void sameMerchantIdDoesNotGrantRefunds() {
+        User owner = new User();
+        owner.setId(1L);
+        owner.setMerchantId("m1");
+        Transaction captured = new Transaction();
+        captured.setUser(owner);
+        captured.setMerchantId("m1");
+        when(transactionRepository.findById(5L)).thenReturn(Optional.of(captured));
+        User other = new User();
+        other.setId(2L);
+        other.setMerchantId("m1"); // self-declared at registration
+
+        assertThatThrownBy(() -> compensationService.requestRefund(other, 5L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Transaction not found");
+        verify(kafkaCompensationProducerService, never()).sendCompensationEvent(any());
+    }
+
+    private static PaymentEvent event(PaymentEventType type, long transactionId) {
+        return new PaymentEvent(type, transactionId, "m1", 500L, null, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.kafka.PaymentEvent;
+import com.example.paymentgateway.kafka.PaymentEventType;
+import com.example.paymentgateway.model.DashboardStats;
+import com.example.paymentgateway.model.DashboardStatsRollup;
+import com.example.paymentgateway.repository.DashboardStatsRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Counter aggregation and checkpointing against a mocked rollup table
+@ExtendWith(MockitoExtension.class)
+class DashboardStatsServiceTest {
+    @Mock
+    private DashboardStatsRollupRepository rollupRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private DashboardStatsService dashboardStatsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dashboardStatsService, "defaultCurrency", Currency.getInstance("USD"));
+        ReflectionTestUtils.setField(dashboardStatsService, "hours", 24);
+        ReflectionTestUtils.setField(dashboardStatsService, "days", 30);
+        ReflectionTestUtils.setField(dashboardStatsService, "snapshotMaxSize", 100);
+        ReflectionTestUtils.setField(dashboardStatsService, "snapshotTtlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(dashboardStatsService, "init");
+    }
+
+    @Test
+    void aggregatesOutcomesPerUserAndTenant() {
+        when(rollupRepository.findWindow(anyString(), anyLong(), anyLong())).thenReturn(List.of());
+        dashboardStatsService.record(event(PaymentEventType.TRANSACTION_CREATED, 1, 1_000));
+        dashboardStatsService.record(event(PaymentEventType.TRANSACTION_CREATED, 2, 2_500));
+        dashboardStatsService.record(event(PaymentEventType.PAYMENT_CAPTURED, 1, 1_000));
+        dashboardStatsService.record(event(PaymentEventType.PAYMENT_FAILED, 2, 2_500));
+        dashboardStatsService.record(event(PaymentEventType.SAGA_STARTED, 1, 1_000)); // not a dashboard event
+
+        DashboardStats user = dashboardStatsService.userStats(7L).get("USD");
+
+        assertThat(user.getTotal().count()).isEqualTo(2);
+        assertThat(user.getTotal().volumeMinor()).isEqualTo(3_500);
+        assertThat(user.getTotal().succeededMinor()).isEqualTo(1_000);
+        assertThat(user.getTotal().successRate()).isEqualTo(0.5);
+        assertThat(user.getHourly()).hasSize(1);
+        assertThat(user.getDaily()).hasSize(1);
+        assertThat(dashboardStatsService.tenantStats("m1").get("USD").getTotal()).isEqualTo(user.getTotal());
+    }
+
+    @Test
+    void keepsCurrenciesApart() {
+        when(rollupRepository.findWindow(anyString(), anyLong(), anyLong())).thenReturn(List.of(rollup("JPY", 3, 9_000)));
+        dashboardStatsService.record(event(PaymentEventType.TRANSACTION_CREATED, 1, 1_000, "EUR"));
+        dashboardStatsService.record(event(PaymentEventType.TRANSACTION_CREATED, 2, 500, "JPY"));
+        dashboardStatsService.record(event(PaymentEventType.TRANSACTION_CREATED, 3, 250)); // pre-currency producer
+
+        Map<String, DashboardStats> user = dashboardStatsService.userStats(7L);
+
+        assertThat(user).containsOnlyKeys("EUR", "JPY", "USD");
+        assertThat(user.get("EUR").getTotal().volumeMinor()).isEqualTo(1_000);
+        assertThat(user.get("JPY").getTotal().count()).isEqualTo(4);
+        assertThat(user.get("JPY").getTotal().volumeMinor()).isEqualTo(9_500);
+        assertThat(user.get("USD").getTotal().volumeMinor()).isEqualTo(250);
+    }
+
+    @Test
+    void checkpointWritesDeltasOnceAndKeepsThemOnFailure() {
+        dashboardStatsService.record(event(PaymentEventType.TRANSACTION_CREATED, 1, 1_000));
+        when(rollupRepository.addDelta(anyString(), anyString(), anyString(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(1);
+
+        dashboardStatsService.checkpoint(); // fails on the first row, deltas are put back
+        dashboardStatsService.checkpoint(); // all six rows: user and tenant scopes x total/hour/day
+        dashboardStatsService.checkpoint(); // nothing left to write
+
+        verify(rollupRepository, times(7)).addDelta(anyString(), anyString(), anyString(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+        verify(rollupRepository, atLeastOnce()).addDelta(eq("user:7"), eq("USD"), eq(DashboardStatsRollup.TOTAL), eq(0L),
+                eq(1L), eq(1_000L), eq(0L), eq(0L), eq(0L), eq(0L), eq(0L));
+    }
+
+    private static PaymentEvent event(PaymentEventType type, long transactionId, long amountMinor) {
+        return new PaymentEvent(type, transactionId, "m1", amountMinor, null, System.currentTimeMillis(), 7L);
+    }
+
+    private static PaymentEvent event(PaymentEventType type, long transactionId, long amountMinor, String currency) {
+        return new PaymentEvent(type, transactionId, "m1", amountMinor, null, System.currentTimeMillis(), 7L, currency);
+    }
+
+    private static DashboardStatsRollup rollup(String currency, long count, long volumeMinor) {
+        DashboardStatsRollup row = new DashboardStatsRollup();
+        row.setScope("user:7");
+        row.setCurrency(currency);
+        row.setGranularity(DashboardStatsRollup.TOTAL);
+        row.setCount(count);
+        row.setVolumeMinor(volumeMinor);
+        return row;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+// Same-key claims are serialized until the claiming transaction completes; cached hits are re-read by id
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    @Mock
+    private TransactionRepository transactionRepository;
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotencyService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(idempotencyService, "cacheTtlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(idempotencyService, "init");
+    }
+
+    @Test
+    void concurrentRetryWaitsForTheFirstClaimAndGetsItsTransaction() throws Exception {
+        // The reference query never sees the row, so the retry can only find it through remember()
+        when(transactionRepository.findByUserIdAndReference(7L, "order-1")).thenReturn(Optional.empty());
+        Transaction created = transaction(11L);
+        when(transactionRepository.findById(11L)).thenReturn(Optional.of(created));
+        AtomicInteger inserts = new AtomicInteger();
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+
+        CompletableFuture<Transaction> first = CompletableFuture.supplyAsync(() -> inTransaction(() -> {
+            assertThat(idempotencyService.claim(7L, "order-1")).isNull();
+            firstClaimed.countDown();
+            await(releaseFirst);
+            inserts.incrementAndGet();
+            idempotencyService.remember(7L, "order-1", created);
+            return created;
+        }));
+        assertThat(firstClaimed.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Transaction> retry = CompletableFuture.supplyAsync(() -> inTransaction(() -> {
+            Transaction existing = idempotencyService.claim(7L, "order-1");
+            if (existing == null) {
+                inserts.incrementAndGet();
+            }
+            return existing;
+        }));
+
+        Thread.sleep(100);
+        assertThat(retry).isNotDone(); // held on the key while the first transaction is open
+        releaseFirst.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(created);
+        assertThat(retry.get(5, TimeUnit.SECONDS)).isSameAs(created);
+        assertThat(inserts).hasValue(1);
+    }
+
+    @Test
+    void cachedHitIsReadAgainSoLaterChangesAreSeen() {
+        idempotencyService.remember(7L, "order-2", transaction(12L));
+        Transaction current = transaction(12L);
+        current.markPending();
+        current.markFailed();
+        when(transactionRepository.findById(12L)).thenReturn(Optional.of(current));
+
+        assertThat(idempotencyService.claim(7L, "order-2")).isSameAs(current);
+    }
+
+    // Runs the work with transaction synchronization active, then completes it as a commit
+    private static <T> T inTransaction(Supplier<T> work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            T result = work.get();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+            return result;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Transaction transaction(Long id) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        return transaction;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.Notification;
+import com.example.paymentgateway.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationHubTest {
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+    private final RecordingEmitter emitter = new RecordingEmitter();
+    private NotificationHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new NotificationHub() {
+            @Override
+            SseEmitter newEmitter() {
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(hub, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hub, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(hub, "queueSize", 4);
+        ReflectionTestUtils.setField(hub, "maxConnectionsPerUser", 5);
+        ReflectionTestUtils.setField(hub, "dispatchThreads", 4);
+        ReflectionTestUtils.setField(hub, "replayPageSize", 2);
+        ReflectionTestUtils.setField(hub, "sendTimeoutMs", 10_000L);
+        ReflectionTestUtils.invokeMethod(hub, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitter.release.countDown();
+        ReflectionTestUtils.invokeMethod(hub, "shutdown");
+    }
+
+    @Test
+    void liveEventsPublishedDuringReplayFollowItWithoutDuplicates() throws InterruptedException {
+        when(notificationRepository.findByUsernameAndStreamSeqGreaterThanOrderByStreamSeqAsc(eq("alice"), eq(0L), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // Published while the first page is being read: 3 is also in the next page, 4 is not
+                    hub.publish(notification(3));
+                    hub.publish(notification(4));
+                    return List.of(notification(1), notification(2));
+                });
+        when(notificationRepository.findByUsernameAndStreamSeqGreaterThanOrderByStreamSeqAsc(eq("alice"), eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(notification(3)));
+        emitter.release.countDown();
+
+        hub.subscribe("alice", 0L);
+
+        assertThat(emitter.nextSequences(4)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(emitter.sent.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void slowConsumerIsDroppedWhenItsQueueOverflows() throws InterruptedException {
+        hub.subscribe("alice", null);
+        hub.publish(notification(1));
+        assertThat(emitter.sending.await(5, TimeUnit.SECONDS)).isTrue(); // stuck writing event 1
+
+        for (int seq = 2; seq <= 6; seq++) {
+            hub.publish(notification(seq)); // the fifth one overflows the queue of 4
+        }
+
+        assertThat(connections()).isZero();
+    }
+
+    @Test
+    void heartbeatNeverWritesAndDropsStalledClients() throws InterruptedException {
+        ReflectionTestUtils.setField(hub, "sendTimeoutMs", 0L);
+        hub.subscribe("alice", null);
+        hub.publish(notification(1));
+        assertThat(emitter.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(5);
+
+        hub.heartbeat(); // returns although the client is not reading
+
+        assertThat(connections()).isZero();
+    }
+
+    private int connections() {
+        return ((AtomicInteger) ReflectionTestUtils.getField(hub, "connections")).get();
+    }
+
+    private static Notification notification(long seq) {
+        Notification notification = new Notification();
+        notification.setStreamSeq(seq);
+        notification.setUsername("alice");
+        notification.setMessage("n" + seq);
+        return notification;
+    }
+
+    // Records the notifications sent; sends block until release, like a client that stopped reading
+    private static final class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<Long> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof Notification notification) {
+                    sent.add(notification.getStreamSeq());
+                }
+            }
+        }
+
+        List<Long> nextSequences(int count) throws InterruptedException {
+            List<Long> sequences = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Long seq = sent.poll(5, TimeUnit.SECONDS);
+                if (seq == null) {
+                    break;
+                }
+                sequences.add(seq);
+            }
+            return sequences;
+        }
+    }
+}
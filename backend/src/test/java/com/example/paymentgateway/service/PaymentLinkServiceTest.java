@@ -0,0 +1,102 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.PaymentLink;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.PaymentLinkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Hot-link cache and atomic redemption against a mocked repository
+@ExtendWith(MockitoExtension.class)
+class PaymentLinkServiceTest {
+    @Mock
+    private PaymentLinkRepository paymentLinkRepository;
+    @Mock
+    private TransactionIntakeService transactionIntakeService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private PaymentLinkService paymentLinkService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(paymentLinkService, "codeLength", 10);
+        ReflectionTestUtils.setField(paymentLinkService, "defaultCurrency", Currency.getInstance("USD"));
+        ReflectionTestUtils.setField(paymentLinkService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(paymentLinkService, "cacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(paymentLinkService, "negativeTtlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(paymentLinkService, "init");
+    }
+
+    @Test
+    void resolvesFromCacheIncludingUnknownCodes() {
+        when(paymentLinkRepository.findByCode("abc")).thenReturn(Optional.of(link("abc")));
+        when(paymentLinkRepository.findByCode("missing")).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(paymentLinkService.resolve("abc")).isPresent();
+            assertThat(paymentLinkService.resolve("missing")).isEmpty();
+        }
+
+        verify(paymentLinkRepository, times(1)).findByCode("abc");
+        verify(paymentLinkRepository, times(1)).findByCode("missing");
+    }
+
+    @Test
+    void refusesPaymentOfUnpayableLinkWithoutSubmitting() {
+        PaymentLink inactive = link("abc");
+        inactive.deactivate();
+        when(paymentLinkRepository.findByCode("abc")).thenReturn(Optional.of(inactive));
+
+        assertThatThrownBy(() -> paymentLinkService.pay(new User(), "abc", "k1"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(transactionIntakeService, never()).submitLinkPayment(any(), any(), any());
+    }
+
+    @Test
+    void submitsUnderLinkScopedReferenceAndForgetsCachedLinkOnFailure() {
+        when(paymentLinkRepository.findByCode("abc")).thenReturn(Optional.of(link("abc")));
+        when(transactionIntakeService.submitLinkPayment(any(), any(), eq("abc")))
+                .thenReturn(CompletableFuture.<Transaction>failedFuture(new IllegalArgumentException("used up")));
+
+        assertThat(paymentLinkService.pay(new User(), "abc", "k1")).isCompletedExceptionally();
+        paymentLinkService.resolve("abc");
+
+        ArgumentCaptor<Transaction> submitted = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionIntakeService).submitLinkPayment(any(), submitted.capture(), eq("abc"));
+        assertThat(submitted.getValue().getReference()).isEqualTo("link:abc:k1");
+        verify(paymentLinkRepository, times(2)).findByCode("abc");
+    }
+
+    private static PaymentLink link(String code) {
+        PaymentLink link = new PaymentLink();
+        link.setCode(code);
+        link.setAmount(new BigDecimal("25.00"));
+        link.setMaxUses(1);
+        link.setExpiresAt(LocalDateTime.now().plusDays(1));
+        return link;
+    }
+}
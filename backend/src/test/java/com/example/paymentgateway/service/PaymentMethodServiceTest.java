@@ -0,0 +1,123 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.PaymentMethod;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.PaymentMethodRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Per-user views are served from cache and dropped only once a change to the user's methods commits
+@ExtendWith(MockitoExtension.class)
+class PaymentMethodServiceTest {
+    @Mock
+    private PaymentMethodRepository paymentMethodRepository;
+    @InjectMocks
+    private PaymentMethodService paymentMethodService;
+
+    private final User user = user(7L);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(paymentMethodService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(paymentMethodService, "cacheTtlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(paymentMethodService, "init");
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void cachedViewIsEvictedOnlyAfterTheChangeCommits() {
+        PaymentMethod existing = method(1L, true);
+        PaymentMethod added = method(2L, false);
+        when(paymentMethodRepository.findByUserId(7L)).thenReturn(List.of(existing)).thenReturn(List.of(existing, added));
+        when(paymentMethodRepository.save(added)).thenReturn(added);
+        assertThat(paymentMethodService.getUserPaymentMethods(user)).containsExactly(existing);
+
+        paymentMethodService.addPaymentMethod(user, added);
+        // Still inside the transaction: other readers cannot see the new row yet, so neither does the cache
+        assertThat(paymentMethodService.getUserPaymentMethods(user)).containsExactly(existing);
+
+        commit();
+
+        assertThat(paymentMethodService.getUserPaymentMethods(user)).containsExactly(existing, added);
+        verify(paymentMethodRepository, times(2)).findByUserId(7L);
+    }
+
+    @Test
+    void rolledBackChangeKeepsTheCachedView() {
+        PaymentMethod method = method(1L, true);
+        when(paymentMethodRepository.findUsableByUserId(7L)).thenReturn(List.of(method));
+        when(paymentMethodRepository.findById(1L)).thenReturn(Optional.of(method));
+        assertThat(paymentMethodService.getUsablePaymentMethods(user)).containsExactly(method);
+
+        paymentMethodService.deactivatePaymentMethod(user, 1L);
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(paymentMethodService.getUsablePaymentMethods(user)).containsExactly(method);
+        verify(paymentMethodRepository, times(1)).findUsableByUserId(7L);
+    }
+
+    @Test
+    void usableViewIsCachedPerUserAndReloadedAfterDeactivation() {
+        PaymentMethod method = method(1L, true);
+        when(paymentMethodRepository.findUsableByUserId(7L)).thenReturn(List.of(method)).thenReturn(List.of());
+        when(paymentMethodRepository.findUsableByUserId(8L)).thenReturn(List.of());
+        when(paymentMethodRepository.findById(1L)).thenReturn(Optional.of(method));
+
+        assertThat(paymentMethodService.getUsablePaymentMethods(user)).containsExactly(method);
+        assertThat(paymentMethodService.getUsablePaymentMethods(user)).containsExactly(method);
+        assertThat(paymentMethodService.getUsablePaymentMethods(user(8L))).isEmpty();
+        verify(paymentMethodRepository, times(1)).findUsableByUserId(7L);
+
+        paymentMethodService.deactivatePaymentMethod(user, 1L);
+        commit();
+
+        assertThat(paymentMethodService.getUsablePaymentMethods(user)).isEmpty();
+        verify(paymentMethodRepository, times(2)).findUsableByUserId(7L);
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private PaymentMethod method(Long id, boolean verified) {
+        PaymentMethod method = new PaymentMethod();
+        method.setId(id);
+        method.setType("CREDIT_CARD");
+        method.setActive(true);
+        method.setVerified(verified);
+        method.setUser(user);
+        return method;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEnabled(true);
+        return user;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.kafka.KafkaSagaProducerService;
+import com.example.paymentgateway.kafka.PaymentEvent;
+import com.example.paymentgateway.kafka.PaymentEventType;
+import com.example.paymentgateway.model.PaymentState;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionStatus;
+import com.example.paymentgateway.repository.TransactionRepository;
+import com.example.paymentgateway.util.ExpiringCache;
+import com.example.paymentgateway.util.KeyedExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentOrchestratorTest {
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private KafkaSagaProducerService kafkaSagaProducerService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private AcquirerClient acquirerClient;
+    @Mock
+    private ScheduledExecutorService resilienceScheduler;
+    @InjectMocks
+    private PaymentOrchestrator paymentOrchestrator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(paymentOrchestrator, "stateIndex", new ExpiringCache<>(100, 60_000));
+    }
+
+    @Test
+    void nonFinalStatesAreAlwaysReadFromTheDatabase() {
+        // Another node's saga captured the payment between the two polls
+        when(transactionRepository.findStatusById(5L))
+                .thenReturn(Optional.of(view(9L, TransactionStatus.PENDING)))
+                .thenReturn(Optional.of(view(9L, TransactionStatus.SUCCESS)));
+
+        assertThat(paymentOrchestrator.getPaymentStatus(5L).state()).isEqualTo(PaymentState.INITIATED);
+        assertThat(paymentOrchestrator.getPaymentStatus(5L).state()).isEqualTo(PaymentState.CAPTURED);
+    }
+
+    @Test
+    void finalStatesAreServedFromTheIndex() {
+        when(transactionRepository.findStatusById(5L)).thenReturn(Optional.of(view(9L, TransactionStatus.REFUNDED)));
+
+        assertThat(paymentOrchestrator.getPaymentStatus(5L).state()).isEqualTo(PaymentState.REFUNDED);
+        assertThat(paymentOrchestrator.getPaymentStatus(5L).userId()).isEqualTo(9L);
+        verify(transactionRepository, times(1)).findStatusById(5L);
+    }
+
+    @Test
+    void recoveryStampsTheRowsItClaimsAndRedrivesTheirNextStep() {
+        ReflectionTestUtils.setField(paymentOrchestrator, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(paymentOrchestrator, "recoveredCounter", new SimpleMeterRegistry().counter("recovered"));
+        ReflectionTestUtils.setField(paymentOrchestrator, "stuckAfterMs", 900_000L);
+        ReflectionTestUtils.setField(paymentOrchestrator, "recoveryBatchSize", 500);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        Transaction pending = transaction(1L, TransactionStatus.PENDING);
+        Transaction authorized = transaction(2L, TransactionStatus.AUTHORIZED);
+        // Rows claimed by another node are skipped by the query itself
+        when(transactionRepository.claimStuckIds(eq("P"), any(), any(), eq(500))).thenReturn(List.of(1L));
+        when(transactionRepository.claimStuckIds(eq("A"), any(), any(), eq(500))).thenReturn(List.of(2L));
+        when(transactionRepository.findAllById(List.of(1L))).thenReturn(List.of(pending));
+        when(transactionRepository.findAllById(List.of(2L))).thenReturn(List.of(authorized));
+
+        paymentOrchestrator.recoverStuckPayments();
+
+        verify(transactionRepository).markRecovered(eq(List.of(1L)), any());
+        verify(transactionRepository).markRecovered(eq(List.of(2L)), any());
+        ArgumentCaptor<PaymentEvent> events = ArgumentCaptor.forClass(PaymentEvent.class);
+        verify(kafkaSagaProducerService, times(2)).sendSagaEvent(events.capture());
+        assertThat(events.getAllValues()).extracting(PaymentEvent::getType)
+                .containsExactly(PaymentEventType.SAGA_STARTED, PaymentEventType.PAYMENT_AUTHORIZED);
+    }
+
+    @Test
+    void timedOutAuthorizationIsRetriedWithTheSameKeyInsteadOfDeclined() {
+        KeyedExecutor sagaExecutor = new KeyedExecutor("test", 1, 16);
+        ReflectionTestUtils.setField(paymentOrchestrator, "sagaExecutor", sagaExecutor);
+        ReflectionTestUtils.setField(paymentOrchestrator, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(paymentOrchestrator, "unknownRetries", 3);
+        ReflectionTestUtils.setField(paymentOrchestrator, "unknownCounter", new SimpleMeterRegistry().counter("unknown"));
+        ReflectionTestUtils.setField(paymentOrchestrator, "droppedCounter", new SimpleMeterRegistry().counter("dropped"));
+        when(resilienceScheduler.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        });
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(acquirerClient.authorize(1L, 1000L, "auth:1"))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        when(transactionRepository.transitionStatus(1L, TransactionStatus.PENDING, TransactionStatus.AUTHORIZED)).thenReturn(1);
+
+        paymentOrchestrator.onSagaEvent(PaymentEvent.of(PaymentEventType.SAGA_STARTED, transaction(1L, TransactionStatus.PENDING)));
+
+        verify(kafkaSagaProducerService, timeout(5000)).sendSagaEvent(any());
+        verify(acquirerClient, times(2)).authorize(1L, 1000L, "auth:1");
+        verify(transactionRepository, never()).transitionStatus(1L, TransactionStatus.PENDING, TransactionStatus.FAILED);
+        sagaExecutor.shutdown();
+    }
+
+    private static Transaction transaction(Long id, TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.transitionTo(status);
+        transaction.setAmount(new BigDecimal("10.00"));
+        transaction.setCurrency(Currency.getInstance("USD"));
+        transaction.setTimestamp(LocalDateTime.now().minusHours(1));
+        return transaction;
+    }
+
+    private static TransactionRepository.StatusView view(Long userId, TransactionStatus status) {
+        return new TransactionRepository.StatusView() {
+            @Override
+            public Long getUserId() { return userId; }
+            @Override
+            public TransactionStatus getStatus() { return status; }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.paymentgateway.service;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Fault injection: the resilient client wrapped around slow, failing and hanging acquirer stand-ins
+class ResilientAcquirerClientTest {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void timesOutSlowAcquirer() {
+        ResilientAcquirerClient client = client(new FaultyAcquirer(Fault.HANG), 10);
+
+        assertThatThrownBy(() -> client.authorize(1L, 100L, "auth:1").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void opensBreakerOnRepeatedFailuresAndStopsCallingAcquirer() {
+        FaultyAcquirer acquirer = new FaultyAcquirer(Fault.FAIL);
+        ResilientAcquirerClient client = client(acquirer, 10);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.capture(1L, 100L, "capture:1").join()).hasCauseInstanceOf(IllegalStateException.class);
+        }
+        assertThatThrownBy(() -> client.capture(1L, 100L, "capture:1").join()).hasCauseInstanceOf(CallNotPermittedException.class);
+        assertThat(acquirer.calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void shedsLoadBeyondBulkheadWithoutTrippingBreaker() {
+        FaultyAcquirer acquirer = new FaultyAcquirer(Fault.HANG);
+        ResilientAcquirerClient client = client(acquirer, 2);
+
+        client.authorize(1L, 100L, "auth:1");
+        client.authorize(2L, 100L, "auth:2");
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> client.authorize(3L, 100L, "auth:3").join()).hasCauseInstanceOf(BulkheadFullException.class);
+        }
+        assertThat(acquirer.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void passesThroughHealthyAcquirer() {
+        ResilientAcquirerClient client = client(new FaultyAcquirer(Fault.NONE), 10);
+
+        assertThat(client.refund(1L, 100L, "refund:1").join()).isTrue();
+    }
+
+    private ResilientAcquirerClient client(AcquirerClient delegate, int maxConcurrentCalls) {
+        ResilientAcquirerClient client = new ResilientAcquirerClient();
+        ReflectionTestUtils.setField(client, "delegate", delegate);
+        ReflectionTestUtils.setField(client, "circuitBreakerRegistry", CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build()));
+        ReflectionTestUtils.setField(client, "bulkheadRegistry", BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build()));
+        ReflectionTestUtils.setField(client, "timeLimiterRegistry", TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+                .timeoutDuration(Duration.ofMillis(50))
+                .build()));
+        ReflectionTestUtils.setField(client, "resilienceScheduler", scheduler);
+        ReflectionTestUtils.invokeMethod(client, "init");
+        return client;
+    }
+
+    private enum Fault { NONE, FAIL, HANG }
+
+    private static final class FaultyAcquirer implements AcquirerClient {
+        private final Fault fault;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        FaultyAcquirer(Fault fault) {
+            this.fault = fault;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> authorize(long transactionId, long amountMinor, String idempotencyKey) {
+            return respond();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> capture(long transactionId, long amountMinor, String idempotencyKey) {
+            return respond();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> voidAuthorization(long transactionId, long amountMinor, String idempotencyKey) {
+            return respond();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> refund(long transactionId, long amountMinor, String idempotencyKey) {
+            return respond();
+        }
+
+        private CompletableFuture<Boolean> respond() {
+            calls.incrementAndGet();
+            return switch (fault) {
+                case NONE -> CompletableFuture.completedFuture(true);
+                case FAIL -> CompletableFuture.failedFuture(new IllegalStateException("acquirer down"));
+                case HANG -> new CompletableFuture<>();
+            };
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.util.LogUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionExportWriterTest {
+    private static final Logger log = LogUtil.getLogger(TransactionExportWriterTest.class);
+    private static final Currency USD = Currency.getInstance("USD");
+
+    @Test
+    void writesCsvWithQuotingAndCheckpoints() throws IOException {
+        StringWriter out = new StringWriter();
+        TransactionExportWriter writer = new TransactionExportWriter(out, TransactionExportWriter.Format.CSV);
+        writer.writeHeader();
+        writer.writeRow(7, LocalDateTime.of(2024, 1, 2, 3, 4, 5), 1250L, USD, "SUCCESS",
+                "m-1", null, "order \"42\", retry");
+        writer.writeRow(8, LocalDateTime.of(2024, 1, 2, 3, 4, 6), 500L, Currency.getInstance("JPY"), "PENDING",
+                "m-1", null, null);
+        writer.writeCheckpoint("abc");
+        writer.flush();
+
+        assertThat(out.toString()).isEqualTo(
+                "id,timestamp,amount,currency,status,merchant_id,bank_id,reference\n"
+                        + "7,2024-01-02T03:04:05,12.50,USD,SUCCESS,m-1,,\"order \"\"42\"\", retry\"\n"
+                        + "8,2024-01-02T03:04:06,500,JPY,PENDING,m-1,,\n"
+                        + "#cursor,abc\n");
+    }
+
+    @Test
+    void writesNdjsonWithEscaping() throws IOException {
+        StringWriter out = new StringWriter();
+        TransactionExportWriter writer = new TransactionExportWriter(out, TransactionExportWriter.Format.NDJSON);
+        writer.writeRow(7, LocalDateTime.of(2024, 1, 2, 3, 4, 5), 1250L, USD, "SUCCESS",
+                null, "b-1", "line\nbreak");
+        writer.writeRow(8, LocalDateTime.of(2024, 1, 2, 3, 4, 6), null, null, "PENDING", null, null, null);
+        writer.flush();
+
+        assertThat(out.toString()).isEqualTo(
+                "{\"id\":7,\"timestamp\":\"2024-01-02T03:04:05\",\"amount\":12.50,\"currency\":\"USD\",\"status\":\"SUCCESS\","
+                        + "\"merchantId\":null,\"bankId\":\"b-1\",\"reference\":\"line\\nbreak\"}\n"
+                        + "{\"id\":8,\"timestamp\":\"2024-01-02T03:04:06\",\"amount\":null,\"currency\":null,\"status\":\"PENDING\","
+                        + "\"merchantId\":null,\"bankId\":null,\"reference\":null}\n");
+    }
+
+    // Export benchmark: 10M synthetic rows through the gzip/CSV path must run in constant memory.
+    // Excluded from the default build; run with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void exportsTenMillionRowsWithinHeapCeiling() throws IOException {
+        CountingOutputStream sink = new CountingOutputStream();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long baselineHeap = runtime.totalMemory() - runtime.freeMemory();
+        long peakHeap = baselineHeap;
+
+        GZIPOutputStream gzip = new GZIPOutputStream(sink, 64 * 1024);
+        TransactionExportWriter writer = new TransactionExportWriter(
+                new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 64 * 1024),
+                TransactionExportWriter.Format.CSV);
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+        long start = System.nanoTime();
+        writer.writeHeader();
+        for (long id = 1; id <= 10_000_000L; id++) {
+            writer.writeRow(id, timestamp, 19_999L, USD, "SUCCESS", "merchant-1", null, "ref");
+            if (id % 1_000_000 == 0) {
+                peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory());
+            }
+        }
+        writer.flush();
+        gzip.finish();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.gc();
+        long retainedHeap = runtime.totalMemory() - runtime.freeMemory();
+        log.info("Exported 10M rows in {} ms, {} compressed bytes, peak heap {} MB", elapsedMs, sink.count, peakHeap >> 20);
+        // Nothing per-row may be retained: after GC the heap is back near where it started
+        assertThat(retainedHeap - baselineHeap).isLessThan(64L << 20);
+        assertThat(sink.count).isPositive();
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.kafka.KafkaCompensationProducerService;
+import com.example.paymentgateway.kafka.KafkaProducerService;
+import com.example.paymentgateway.kafka.KafkaSagaProducerService;
+import com.example.paymentgateway.model.PaymentLink;
+import com.example.paymentgateway.model.Transaction;
+import com.example.paymentgateway.model.TransactionCursor;
+import com.example.paymentgateway.model.TransactionFilter;
+import com.example.paymentgateway.model.TransactionPage;
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.PaymentLinkRepository;
+import com.example.paymentgateway.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Amount handling and payment-link payments, where the use is taken with the insert and the link decides payee and amount
+@ExtendWith(MockitoExtension.class)
+class TransactionServiceTest {
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private PaymentLinkRepository paymentLinkRepository;
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+    @Mock
+    private KafkaSagaProducerService kafkaSagaProducerService;
+    @Mock
+    private KafkaCompensationProducerService kafkaCompensationProducerService;
+    @InjectMocks
+    private TransactionService transactionService;
+
+    private final User payer = new User();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionService, "defaultCurrency", Currency.getInstance("USD"));
+        payer.setId(7L);
+        payer.setMerchantId("payer-merchant");
+        payer.setEnabled(true);
+    }
+
+    @Test
+    void storesDecimalAmountAtTheCurrencyScale() {
+        when(transactionRepository.save(any())).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+        Transaction request = new Transaction();
+        request.setAmount(new BigDecimal("1.005"));
+        request.setCurrency(Currency.getInstance("BHD"));
+
+        Transaction saved = transactionService.createTransaction(payer, request);
+
+        assertThat(saved.getAmountMinor()).isEqualTo(1005L);
+        assertThat(saved.getAmount()).isEqualTo(new BigDecimal("1.005"));
+    }
+
+    @Test
+    void amountFilterWithoutCurrencyMeansTheDefaultCurrency() {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setMinAmount(new BigDecimal("10"));
+
+        transactionService.getUserTransactionsPage(payer, filter, null, 20);
+
+        ArgumentCaptor<TransactionFilter> used = ArgumentCaptor.forClass(TransactionFilter.class);
+        verify(transactionRepository).findPage(used.capture(), isNull(), eq(21));
+        assertThat(used.getValue().getCurrency()).isEqualTo(Currency.getInstance("USD"));
+        // A payer's history includes what they paid to other merchants through payment links
+        assertThat(used.getValue().getUserId()).isEqualTo(7L);
+        assertThat(used.getValue().getMerchantId()).isNull();
+    }
+
+    @Test
+    void linkPaymentTakesAmountCurrencyAndMerchantFromTheLink() {
+        PaymentLink link = new PaymentLink();
+        link.setCode("abc");
+        link.setAmount(new BigDecimal("500"));
+        link.setCurrency(Currency.getInstance("JPY"));
+        link.setMerchantId("link-merchant");
+        when(paymentLinkRepository.redeem(eq("abc"), any())).thenReturn(1);
+        when(paymentLinkRepository.findByCode("abc")).thenReturn(Optional.of(link));
+        when(transactionRepository.save(any())).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+
+        Transaction request = new Transaction();
+        request.setAmount(new BigDecimal("1.00")); // ignored: the link sets the amount
+        Transaction saved = transactionService.createLinkPayment(payer, request, "abc");
+
+        assertThat(saved.getAmountMinor()).isEqualTo(500L);
+        assertThat(saved.getCurrency()).isEqualTo(Currency.getInstance("JPY"));
+        assertThat(saved.getMerchantId()).isEqualTo("link-merchant");
+        assertThat(saved.getPaymentLink()).isSameAs(link);
+    }
+
+    @Test
+    void usedUpLinkIsRefusedWithoutInsert() {
+        when(paymentLinkRepository.redeem(eq("abc"), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> transactionService.createLinkPayment(payer, new Transaction(), "abc"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void retriedLinkPaymentReturnsTheFirstWithoutTakingAnotherUse() {
+        Transaction first = new Transaction();
+        Transaction retry = new Transaction();
+        retry.setReference("link:abc:k1");
+        when(idempotencyService.claim(7L, "link:abc:k1")).thenReturn(first);
+
+        assertThat(transactionService.createLinkPayment(payer, retry, "abc")).isSameAs(first);
+        verify(paymentLinkRepository, never()).redeem(any(), any());
+    }
+
+    @Test
+    void pagesThroughRowsSharingATimestampWithoutSkipsOrRepeats() {
+        // Five rows in the same millisecond: page boundaries fall between them, so only the id breaks the tie
+        LocalDateTime same = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Transaction> table = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            table.add(row(id, same));
+        }
+        table.add(row(6, same.minusSeconds(1)));
+        when(transactionRepository.findPage(any(), any(), anyInt())).thenAnswer(invocation ->
+                seek(table, invocation.getArgument(1), invocation.getArgument(2)));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = transactionService.getUserTransactionsPage(payer, new TransactionFilter(), cursor, 2);
+            page.getItems().forEach(t -> seen.add(t.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactly(5L, 4L, 3L, 2L, 1L, 6L);
+    }
+
+    // In-memory stand-in for the repository's seek: (timestamp DESC, id DESC), strictly past the cursor
+    private static List<Transaction> seek(List<Transaction> table, TransactionCursor after, int limit) {
+        Comparator<Transaction> order = Comparator.comparing(Transaction::getTimestamp)
+                .thenComparing(Transaction::getId).reversed();
+        return table.stream()
+                .filter(t -> after == null || t.getTimestamp().isBefore(after.getTimestamp())
+                        || (t.getTimestamp().isEqual(after.getTimestamp()) && t.getId() < after.getId()))
+                .sorted(order)
+                .limit(limit)
+                .toList();
+    }
+
+    private static Transaction row(long id, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+
+    private static Transaction saved(Transaction transaction) {
+        transaction.setId(1L);
+        return transaction;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two gateway nodes sharing one store: loads fill both tiers, evictions reach the other node's near cache
+class UserCacheTest {
+    private LocalUserCacheStore store;
+    private UserCache nodeA;
+    private UserCache nodeB;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalUserCacheStore();
+        ReflectionTestUtils.setField(store, "maxSize", 100);
+        ReflectionTestUtils.setField(store, "ttlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(store, "init");
+        nodeA = node();
+        nodeB = node();
+    }
+
+    @Test
+    void loadsOnceAcrossNodes() {
+        assertThat(nodeA.get("alice", this::load)).isPresent();
+        assertThat(nodeB.get("alice", this::load)).isPresent();
+        assertThat(nodeA.get("alice", this::load)).isPresent();
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void evictionOnOneNodeInvalidatesEveryNearCache() {
+        nodeA.get("alice", this::load);
+        nodeB.get("alice", this::load);
+
+        nodeA.evict("alice");
+        nodeB.get("alice", this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotCacheMissingUsers() {
+        nodeA.get("ghost", username -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        nodeA.get("ghost", this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private UserCache node() {
+        UserCache cache = new UserCache();
+        ReflectionTestUtils.setField(cache, "remote", store);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "nearMaxSize", 100);
+        ReflectionTestUtils.setField(cache, "nearTtlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        return cache;
+    }
+
+    private Optional<User> load(String username) {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setUsername(username);
+        return Optional.of(user);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.paymentgateway.service;
+
+import com.example.paymentgateway.model.User;
+import com.example.paymentgateway.repository.UserRepository;
+import com.example.paymentgateway.security.PasswordHashingService;
+import com.example.paymentgateway.security.RefreshTokenService;
+import com.example.paymentgateway.security.VerifiedTokenCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Administrative enable/disable: admin only, and disabling revokes what the user already holds
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PasswordHashingService passwordHashingService;
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    @Mock
+    private UserCache userCache;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    @InjectMocks
+    private UserService userService;
+
+    @Test
+    void adminDisablesAndReenablesAUser() {
+        User bob = user(2L, "bob", "ROLE_CUSTOMER");
+        bob.setEnabled(true);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(bob));
+        when(userRepository.save(bob)).thenReturn(bob);
+        User admin = user(1L, "root", "ROLE_ADMIN");
+
+        assertThat(userService.disableUser(admin, 2L).isEnabled()).isFalse();
+        verify(verifiedTokenCache).invalidateUser("bob");
+        verify(refreshTokenService).revokeUser("bob");
+        verify(userCache).evict("bob");
+
+        assertThat(userService.enableUser(admin, 2L).isEnabled()).isTrue();
+    }
+
+    @Test
+    void nonAdminCannotDisableUsers() {
+        User alice = user(3L, "alice", "ROLE_MERCHANT");
+
+        assertThatThrownBy(() -> userService.disableUser(alice, 2L)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> userService.enableUser(alice, 2L)).isInstanceOf(IllegalArgumentException.class);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void registrationAlwaysCreatesACustomer() {
+        when(passwordHashingService.encode("secret-pw")).thenReturn(CompletableFuture.completedFuture("hash"));
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        User registering = user(null, "mallory", "ROLE_ADMIN");
+        registering.setPassword("secret-pw");
+
+        User saved = userService.registerUser(registering).join();
+
+        assertThat(saved.getRoles()).containsExactly("ROLE_CUSTOMER");
+        assertThat(saved.isAdmin()).isFalse();
+        assertThat(saved.getPassword()).isEqualTo("hash");
+    }
+
+    private static User user(Long id, String username, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.getRoles().add(role);
+        return user;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.paymentgateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedRingBufferTest {
+
+    @Test
+    void singleSlotRequestNeverOverwritesAQueuedElement() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(1);
+        assertThat(buffer.capacity()).isEqualTo(2);
+
+        assertThat(buffer.offer(1)).isTrue();
+        assertThat(buffer.offer(2)).isTrue();
+        assertThat(buffer.offer(3)).isFalse();
+        assertThat(buffer.poll()).isEqualTo(1);
+        assertThat(buffer.poll()).isEqualTo(2);
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void roundsCapacityUpAndFailsFastWhenFullOrEmpty() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(5);
+        assertThat(buffer.capacity()).isEqualTo(8);
+        assertThat(buffer.poll()).isNull();
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(8)).isFalse();
+        assertThat(buffer.size()).isEqualTo(8);
+
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(8)).isTrue(); // one slot freed
+        assertThatThrownBy(() -> new BoundedRingBuffer<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void keepsFifoOrderAcrossWraparound() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // Three elements in flight while positions lap the four slots many times
+        for (int round = 0; round < 100; round++) {
+            while (buffer.size() < 3) {
+                assertThat(buffer.offer(next++)).isTrue();
+            }
+            assertThat(buffer.poll()).isEqualTo(expected++);
+        }
+        List<Integer> rest = new ArrayList<>();
+        assertThat(buffer.drainTo(rest, 10)).isEqualTo(2);
+        assertThat(rest).containsExactly(expected, expected + 1);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        BoundedRingBuffer<Long> buffer = new BoundedRingBuffer<>(1024);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(producer * perProducer + i)) {
+                        Thread.onSpinWait(); // full: the consumer below catches up
+                    }
+                }
+            });
+        }
+        start.countDown();
+
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received < producers * perProducer && System.nanoTime() < deadline) {
+            Long value = buffer.poll();
+            if (value == null) {
+                continue;
+            }
+            int producer = (int) (value / perProducer);
+            long sequence = value % perProducer;
+            assertThat(sequence).isEqualTo(lastSeen[producer] + 1); // per-producer order, no gaps or repeats
+            lastSeen[producer] = sequence;
+            received++;
+        }
+        pool.shutdown();
+
+        assertThat(received).isEqualTo(producers * perProducer);
+        assertThat(buffer.poll()).isNull();
+    }
+}
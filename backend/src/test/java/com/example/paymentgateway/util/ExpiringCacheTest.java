@@ -0,0 +1,52 @@
+package com.example.paymentgateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpiringCacheTest {
+
+    @Test
+    void returnsValueUntilExpired() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 50);
+        cache.put("k", "v");
+        assertThat(cache.get("k")).isEqualTo("v");
+        Thread.sleep(80);
+        assertThat(cache.get("k")).isNull();
+    }
+
+    @Test
+    void perEntryTtlIsCappedAtDefault() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 50);
+        cache.put("k", "v", 60_000);
+        Thread.sleep(80);
+        assertThat(cache.get("k")).isNull();
+    }
+
+    @Test
+    void staysWithinBound() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100, 60_000);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.get(9_999)).isEqualTo(9_999);
+    }
+
+    @Test
+    void invalidateRemovesEntry() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 60_000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.invalidate("a");
+        cache.invalidateIf((k, v) -> v.equals("2"));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveBounds() {
+        assertThatThrownBy(() -> new ExpiringCache<>(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ExpiringCache<>(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
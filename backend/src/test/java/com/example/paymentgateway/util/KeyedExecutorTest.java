@@ -0,0 +1,68 @@
+package com.example.paymentgateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedExecutorTest {
+
+    @Test
+    void sameKeyRunsInSubmissionOrder() throws InterruptedException {
+        KeyedExecutor executor = new KeyedExecutor("test", 4, 16);
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            executor.execute(42L, () -> {
+                seen.add(n);
+                done.countDown();
+            });
+        }
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 1000; i++) {
+            assertThat(seen.get(i)).isEqualTo(i);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void laneSubmittingToItselfWhenFullDoesNotDeadlock() throws InterruptedException {
+        KeyedExecutor executor = new KeyedExecutor("test", 1, 1);
+        CountDownLatch done = new CountDownLatch(10);
+        executor.execute(1L, () -> {
+            for (int i = 0; i < 10; i++) {
+                executor.execute(1L, done::countDown);
+            }
+        });
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+    }
+
+    @Test
+    void tryExecuteRefusesInsteadOfBlockingWhenLaneIsFull() throws InterruptedException {
+        KeyedExecutor executor = new KeyedExecutor("test", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(1L, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(1L, () -> { });
+
+        assertThat(executor.tryExecute(1L, () -> { })).isFalse();
+        release.countDown();
+        CountDownLatch done = new CountDownLatch(1);
+        while (!executor.tryExecute(1L, done::countDown)) {
+            Thread.sleep(1);
+        }
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+    }
+}